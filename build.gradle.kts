@@ -1,5 +1,7 @@
 plugins {
     alias(libs.plugins.kotlin.jvm)
+    alias(libs.plugins.jmh)
+    alias(libs.plugins.graalvm.native)
     application
 }
 
@@ -26,6 +28,67 @@ dependencies {
 
     // all walt.id dependencies (not required for this project)
     implementation(libs.bundles.waltidNotNeeded)
+
+    implementation(libs.kotlinx.coroutines.core)
+    implementation(libs.bouncycastle.bcprov)
+    implementation(libs.bouncycastle.bcpkix)
+}
+
+// Benchmarks in src/jmh, run with ./gradlew jmh (select with -PjmhIncludes=<regex>, profile with -PjmhProfilers=gc)
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+    providers.gradleProperty("jmhProfilers").orNull?.let { profilers.addAll(it.split(',')) }
+}
+
+// Native executables, build with ./gradlew nativeCompile (needs a GraalVM JDK): RunAllKt, waltid.RunAll and the
+// verification examples (VerifyAllKt, see scripts/startup-comparison.sh). Build-time options are in
+// src/main/resources/META-INF/native-image. Generate the reachability metadata with the tracing agent on a GraalVM
+// JDK: ./gradlew -Pagent run runVerify metadataCopy
+graalvmNative {
+    metadataRepository {
+        enabled = true
+    }
+    agent {
+        metadataCopy {
+            inputTaskNames.addAll("run", "runVerify")
+            outputDirectories.add("src/main/resources/META-INF/native-image/identity/waltid-examples")
+            mergeWithExisting = true
+        }
+    }
+    binaries {
+        named("main") {
+            imageName = "waltid-examples"
+            mainClass = "RunAllKt"
+        }
+        register("java") {
+            imageName = "waltid-examples-java"
+            mainClass = "waltid.RunAll"
+            classpath.from(tasks.named("jar"), configurations.runtimeClasspath)
+        }
+        register("verify") {
+            imageName = "waltid-examples-verify"
+            mainClass = "VerifyAllKt"
+            classpath.from(tasks.named("jar"), configurations.runtimeClasspath)
+        }
+    }
+}
+
+// The verification examples on the JVM, also traced by the agent for the waltid-examples-verify metadata
+tasks.register<JavaExec>("runVerify") {
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass.set("VerifyAllKt")
+}
+
+// The hand-written reflect-config.json does not cover the Ktor HTTP clients of the walt.id libraries, a native image
+// built from it fails at runtime. Refuse to build until agent-generated metadata has been committed.
+val reflectConfig = layout.projectDirectory.file("src/main/resources/META-INF/native-image/identity/waltid-examples/reflect-config.json")
+tasks.matching { it.name.startsWith("native") && it.name.endsWith("Compile") }.configureEach {
+    doFirst {
+        check("\"io.ktor." in reflectConfig.asFile.readText()) {
+            "reflect-config.json has no Ktor entries, generate it first: ./gradlew -Pagent run runVerify metadataCopy"
+        }
+    }
 }
 
 // Configure run task to allow dynamic main class selection
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Startup time and peak RSS of the verification examples (VerifyAllKt) on the JVM and as native image.
+#
+#   scripts/startup-comparison.sh [--agent] [runs]
+#
+# Needs a GraalVM JDK (JAVA_HOME or GRAALVM_HOME) for nativeVerifyCompile and GNU time (/usr/bin/time).
+# With --agent, the reachability metadata in src/main/resources/META-INF/native-image is regenerated with the
+# tracing agent (./gradlew -Pagent run runVerify metadataCopy) before the native image is built.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+AGENT=false
+if [[ ${1:-} == --agent ]]; then AGENT=true; shift; fi
+RUNS=${1:-5}
+TIME=/usr/bin/time
+[[ -x $TIME ]] || { echo "GNU time ($TIME) is required" >&2; exit 1; }
+
+if $AGENT; then ./gradlew -q -Pagent run runVerify metadataCopy; fi
+./gradlew -q installDist nativeVerifyCompile
+
+# java.specification.version is "1.8" up to Java 8, the feature version from Java 9 on
+JAVA_VERSION=$(java -XshowSettings:properties -version 2>&1 | awk -F' = ' '/java.specification.version/ { print $2 }')
+JAVA_VERSION=${JAVA_VERSION#1.}
+
+CLASSPATH_ARGS=(-cp "build/install/waltid-examples/lib/*" VerifyAllKt)
+JVM=(java "${CLASSPATH_ARGS[@]}")
+if (( JAVA_VERSION >= 19 )); then
+    # the first run creates the CDS archive
+    JVM_CDS_DUMP=(java -XX:TieredStopAtLevel=1 -XX:+AutoCreateSharedArchive -XX:SharedArchiveFile=build/verify-all.jsa "${CLASSPATH_ARGS[@]}")
+    JVM_CDS=("${JVM_CDS_DUMP[@]}")
+else
+    # -XX:+AutoCreateSharedArchive needs Java 19, older JVMs dump the dynamic archive explicitly (Java 13+)
+    (( JAVA_VERSION >= 13 )) || { echo "Java 13 or newer is required for dynamic CDS archives, found $JAVA_VERSION" >&2; exit 1; }
+    JVM_CDS_DUMP=(java -XX:TieredStopAtLevel=1 -XX:ArchiveClassesAtExit=build/verify-all.jsa "${CLASSPATH_ARGS[@]}")
+    JVM_CDS=(java -XX:TieredStopAtLevel=1 -XX:SharedArchiveFile=build/verify-all.jsa "${CLASSPATH_ARGS[@]}")
+fi
+NATIVE=(build/native/nativeVerifyCompile/waltid-examples-verify)
+
+# prints "<seconds> <max RSS in KB>" per run, the program output goes to build/startup-<name>.log
+measure() {
+    local name=$1; shift
+    for _ in $(seq "$RUNS"); do
+        "$TIME" -f "%e %M" -o build/startup-time.txt "$@" > "build/startup-$name.log" 2>&1
+        cat build/startup-time.txt
+    done
+}
+
+report() {
+    local name=$1; shift
+    measure "$name" "$@" | awk -v name="$name" '
+        { time += $1; rss += $2; if ($2 > max) max = $2 }
+        END { printf "%-12s avg %6.3f s   avg RSS %7.1f MB   max RSS %7.1f MB   (%d runs)\n", name, time / NR, rss / NR / 1024, max / 1024, NR }'
+}
+
+echo "Verification examples, $RUNS runs each"
+report jvm "${JVM[@]}"
+rm -f build/verify-all.jsa
+"${JVM_CDS_DUMP[@]}" > /dev/null 2>&1
+report jvm-cds-c1 "${JVM_CDS[@]}"
+report native "${NATIVE[@]}"
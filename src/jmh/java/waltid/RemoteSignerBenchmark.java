@@ -0,0 +1,54 @@
+package waltid;
+
+import id.walt.crypto.keys.KeyType;
+import id.walt.crypto.keys.jwk.JWKKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link RemoteSignerKey} signing from many threads against a {@link RemoteSignerServer} that adds
+ * {@code latencyMicros} per round trip. {@code maxBatchSize = 1} disables coalescing for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+public class RemoteSignerBenchmark {
+
+    @Param({"0", "1000"})
+    public int latencyMicros;
+
+    @Param({"1", "64"})
+    public int maxBatchSize;
+
+    private RemoteSignerServer server;
+    private RemoteSignerClient client;
+    private RemoteSignerKey key;
+    private final byte[] plaintext = "benchmark payload".getBytes(StandardCharsets.UTF_8);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        server = new RemoteSignerServer(Duration.ofNanos(latencyMicros * 1_000L));
+        client = new RemoteSignerClient(server.getAddress(), Duration.ofSeconds(5), Duration.ofNanos(50_000), maxBatchSize, 4096);
+        String remoteKeyId = server.addKey((JWKKey) JWKKey.Companion.generateBlocking(KeyType.Ed25519, null));
+        key = RemoteSignerKey.connect(client, remoteKeyId);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        System.out.printf("%naverage batch size: %.1f%n", client.averageBatchSize());
+        client.close();
+        server.close();
+    }
+
+    @Benchmark
+    public byte[] signRaw() {
+        return key.javaSignRaw(plaintext);
+    }
+}
@@ -0,0 +1,46 @@
+package crypto.encoding
+
+import id.walt.crypto.utils.decodeBase58
+import id.walt.crypto.utils.encodeToBase58String
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+import kotlin.random.Random
+
+/**
+ * [Base58] against the walt.id Base58 helpers for Ed25519 (32), compressed (33) and uncompressed (65) EC points
+ * and RSA-2048 / RSA-4096 public keys (294 / 550 bytes).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class Base58Benchmark {
+
+    @Param("32", "33", "65", "294", "550")
+    var size: Int = 0
+
+    private lateinit var bytes: ByteArray
+    private lateinit var encoded: String
+
+    @Setup
+    fun setUp() {
+        bytes = Random(size).nextBytes(size)
+        encoded = Base58.encode(bytes)
+        check(encoded == bytes.encodeToBase58String()) { "Base58 mismatch for $size bytes" }
+        check(Base58.decode(encoded).contentEquals(bytes)) { "Base58 round trip failed for $size bytes" }
+    }
+
+    @Benchmark
+    fun encode(): String = Base58.encode(bytes)
+
+    @Benchmark
+    fun encodeWaltid(): String = bytes.encodeToBase58String()
+
+    @Benchmark
+    fun decode(): ByteArray = Base58.decode(encoded)
+
+    @Benchmark
+    fun decodeWaltid(): ByteArray = encoded.decodeBase58()
+}
@@ -0,0 +1,72 @@
+package crypto.key.rsa
+
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.JsonObject
+import org.openjdk.jmh.annotations.*
+import java.security.Signature
+import java.security.interfaces.RSAPrivateCrtKey
+import java.util.concurrent.TimeUnit
+
+/**
+ * RSA signing of a 256-byte message. Before: walt.id `signRaw` with a key imported without CRT parameters, with
+ * CRT parameters, and a JCA engine created per signature. After: [RsaSigner] with per-thread engines (RS256 and
+ * PS256) and a [MultiPrimeRsaKey] with the largest prime count for the size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class RsaSigningBenchmark {
+
+    @Param("2048", "4096")
+    var bits: Int = 0
+
+    private lateinit var withoutCrt: JWKKey
+    private lateinit var withCrt: JWKKey
+    private lateinit var privateKey: RSAPrivateCrtKey
+    private lateinit var pkcs1Signer: RsaSigner
+    private lateinit var pssSigner: RsaSigner
+    private lateinit var multiPrime: MultiPrimeRsaKey
+    private val message = ByteArray(256) { it.toByte() }
+
+    @Setup
+    fun setUp() = runBlocking {
+        val jwk = generateRsaKey(bits).exportJWKObject()
+        withoutCrt = JWKKey.importJWK(JsonObject(jwk.filterKeys { it !in RsaCrt.CRT_MEMBERS }).toString()).getOrThrow()
+        withCrt = RsaCrt.importJwk(JsonObject(jwk.filterKeys { it !in RsaCrt.CRT_MEMBERS }).toString()).getOrThrow()
+        privateKey = RsaCrt.privateKey(jwk)
+        pkcs1Signer = RsaSigner(privateKey, RsaSignatureScheme.RS256)
+        pssSigner = RsaSigner(privateKey, RsaSignatureScheme.PS256)
+        multiPrime = MultiPrimeRsaKey.generate(bits)
+
+        val verifier = Signature.getInstance("SHA256withRSA")
+        verifier.initVerify(multiPrime.publicKey)
+        verifier.update(message)
+        check(verifier.verify(multiPrime.signPkcs1Sha256(message)))
+    }
+
+    @Benchmark
+    fun waltidWithoutCrt(): Any = runBlocking { withoutCrt.signRaw(message) }
+
+    @Benchmark
+    fun waltidWithCrt(): Any = runBlocking { withCrt.signRaw(message) }
+
+    @Benchmark
+    fun enginePerSignature(): ByteArray = Signature.getInstance("SHA256withRSA").run {
+        initSign(privateKey)
+        update(message)
+        sign()
+    }
+
+    @Benchmark
+    fun reusedEnginePkcs1(): ByteArray = pkcs1Signer.sign(message)
+
+    @Benchmark
+    fun reusedEnginePss(): ByteArray = pssSigner.sign(message)
+
+    @Benchmark
+    fun multiPrime(): ByteArray = multiPrime.signPkcs1Sha256(message)
+}
@@ -0,0 +1,140 @@
+package crypto.key.store
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.*
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.Paths
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+
+/**
+ * Lookup and decryption in a [FileKeyStore] with [keyCount] synthetic keys. The store is generated once into
+ * `build/jmh-keystore-<keyCount>` and reused by later runs, and reopened before measuring, so lookups go through the
+ * mapped index. With [keyCacheSize] 0, every lookup reads the record header and every [lookupAndDecrypt] decrypts
+ * and imports the key; [lookupAndDecryptHot] shows the effect of the handle cache on a small set of hot keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class FileKeyStoreBenchmark {
+
+    @Param("1000000")
+    var keyCount: Int = 0
+
+    @Param("0", "1024")
+    var keyCacheSize: Int = 0
+
+    private lateinit var directory: Path
+    private lateinit var store: FileKeyStore
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        directory = populate(keyCount)
+        store = FileKeyStore.open(directory, PASSPHRASE, keyCacheSize = keyCacheSize)
+    }
+
+    @TearDown(Level.Trial)
+    fun tearDown() {
+        store.close()
+    }
+
+    @Benchmark
+    fun lookupByKid(): StoredKey? = store.getByKid(kid(ThreadLocalRandom.current().nextInt(keyCount)))
+
+    @Benchmark
+    fun lookupByThumbprint(): StoredKey? = store.getByThumbprint(thumbprint(ThreadLocalRandom.current().nextInt(keyCount)))
+
+    @Benchmark
+    fun lookupMissing(): StoredKey? = store.getByKid("missing-${ThreadLocalRandom.current().nextInt()}")
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    fun lookupAndDecrypt() = runBlocking {
+        store.getByKid(kid(ThreadLocalRandom.current().nextInt(keyCount)))!!.key()
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    fun lookupAndDecryptHot() = runBlocking {
+        store.getByKid(kid(ThreadLocalRandom.current().nextInt(HOT_KEYS)))!!.key()
+    }
+
+    private companion object {
+        const val HOT_KEYS = 256
+    }
+}
+
+/**
+ * Opening a [FileKeyStore] with [keyCount] keys. No other instance has the store open while it is measured; the
+ * files are in the page cache after the first iteration, drop it between runs to measure a cold disk.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+open class FileKeyStoreOpenBenchmark {
+
+    @Param("1000000")
+    var keyCount: Int = 0
+
+    private lateinit var directory: Path
+
+    @Setup(Level.Trial)
+    fun setUp() {
+        directory = populate(keyCount)
+    }
+
+    /**
+     * Opening includes the PBKDF2 key derivation, mapping the index and the first lookup.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 5)
+    fun coldOpen(): StoredKey? = FileKeyStore.open(directory, PASSPHRASE).use { it.getByKid(kid(keyCount - 1)) }
+
+    /**
+     * Cold load after a crash: the index is missing and rebuilt by scanning the data file.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 3)
+    fun coldOpenRebuildingIndex(): StoredKey? {
+        Files.copy(directory.resolve("keys.dat"), rebuildDirectory().resolve("keys.dat"))
+        return FileKeyStore.open(rebuildDirectory(), PASSPHRASE).use { it.getByKid(kid(keyCount - 1)) }
+    }
+
+    @TearDown(Level.Iteration)
+    fun deleteRebuildDirectory() {
+        val rebuild = Paths.get("build", "jmh-keystore-rebuild")
+        if (Files.exists(rebuild)) Files.list(rebuild).use { files -> files.forEach(Files::delete) }
+    }
+
+    private fun rebuildDirectory(): Path = Files.createDirectories(Paths.get("build", "jmh-keystore-rebuild"))
+}
+
+private val PASSPHRASE = "benchmark".toCharArray()
+
+private fun kid(i: Int) = "key-$i"
+private fun thumbprint(i: Int) = "thumbprint-$i"
+
+// all records share the key material, only kid and thumbprint differ
+private fun populate(keyCount: Int): Path {
+    val directory = Paths.get("build", "jmh-keystore-$keyCount")
+    FileKeyStore.open(directory, PASSPHRASE).use { store ->
+        if (store.size < keyCount) runBlocking {
+            val key = JWKKey.generate(KeyType.Ed25519)
+            for (i in store.size.toInt() until keyCount) {
+                store.put(key, keyId = kid(i), thumbprint = thumbprint(i))
+            }
+        }
+    }
+    return directory
+}
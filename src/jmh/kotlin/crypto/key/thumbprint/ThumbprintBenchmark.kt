@@ -0,0 +1,43 @@
+package crypto.key.thumbprint
+
+import crypto.key.rsa.generateRsaKey
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.JsonObject
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Thumbprint of an RSA-4096 key (a 683 character modulus in the canonical JSON): walt.id, [JwkThumbprint] on
+ * an already exported JWK, and [ThumbprintCache] hits. All variants but [canonicalWriter] include `runBlocking`.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+open class ThumbprintBenchmark {
+
+    private lateinit var key: JWKKey
+    private lateinit var jwk: JsonObject
+
+    @Setup
+    fun setUp() = runBlocking {
+        key = generateRsaKey(4096)
+        jwk = key.exportJWKObject()
+        check(JwkThumbprint.compute(jwk) == key.getThumbprint()) { "Thumbprint mismatch" }
+    }
+
+    @Benchmark
+    fun waltid(): String = runBlocking { key.getThumbprint() }
+
+    @Benchmark
+    fun canonicalWriter(): String = JwkThumbprint.compute(jwk)
+
+    @Benchmark
+    fun cached(): String = runBlocking { ThumbprintCache.thumbprint(key) }
+
+    @Benchmark
+    fun cachedKeyId(): String = runBlocking { ThumbprintCache.keyId(key) }
+}
@@ -0,0 +1,41 @@
+package crypto.signatures.raw
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * ECDSA signing throughput of a 256-byte message with a long-lived key: walt.id `signRaw` against
+ * [FixedBaseEcdsaSigner] with its per-process generator table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class EcdsaSigningBenchmark {
+
+    @Param("secp256r1", "secp256k1")
+    var keyType: String = ""
+
+    private lateinit var key: JWKKey
+    private lateinit var signer: FixedBaseEcdsaSigner
+    private val message = ByteArray(256) { it.toByte() }
+
+    @Setup
+    fun setUp() = runBlocking {
+        FixedBaseEcdsaSigner.selfTest()
+        key = JWKKey.generate(KeyType.valueOf(keyType))
+        signer = FixedBaseEcdsaSigner.fromKey(key)
+        check(signer.verify(message, signer.sign(message)))
+    }
+
+    @Benchmark
+    fun waltid(): Any = runBlocking { key.signRaw(message) }
+
+    @Benchmark
+    fun fixedBase(): ByteArray = signer.sign(message)
+}
@@ -0,0 +1,56 @@
+package crypto.signatures.raw
+
+import id.walt.crypto.keys.Key
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.runBlocking
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters
+import org.bouncycastle.math.ec.rfc8032.Ed25519
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Ed25519 verification of a 256-byte message: walt.id `verifyRaw`, BouncyCastle with the public key decoded on
+ * every call, and [Ed25519VerificationCache] with [keyCount] issuer keys verified round robin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class Ed25519VerificationBenchmark {
+
+    @Param("1", "16")
+    var keyCount: Int = 0
+
+    private lateinit var publicKeys: List<Key>
+    private lateinit var rawPublicKeys: List<ByteArray>
+    private lateinit var signatures: List<ByteArray>
+    private val message = ByteArray(256) { it.toByte() }
+    private val cache = Ed25519VerificationCache()
+    private var next = 0
+
+    @Setup
+    fun setUp() = runBlocking {
+        val keys = List(keyCount) { JWKKey.generate(KeyType.Ed25519) }
+        publicKeys = keys.map { it.getPublicKey() }
+        rawPublicKeys = publicKeys.map { it.getPublicKeyRepresentation() }
+        signatures = keys.map { it.signRaw(message) as ByteArray }
+        check(rawPublicKeys.indices.all { cache.verify(rawPublicKeys[it], signatures[it], message) })
+    }
+
+    private fun nextIndex(): Int = next.also { next = (next + 1) % keyCount }
+
+    @Benchmark
+    fun waltid(): Any = nextIndex().let { i -> runBlocking { publicKeys[i].verifyRaw(signatures[i], message) } }
+
+    @Benchmark
+    fun decodeEveryTime(): Boolean = nextIndex().let { i ->
+        Ed25519PublicKeyParameters(rawPublicKeys[i], 0)
+            .verify(Ed25519.Algorithm.Ed25519, null, message, 0, message.size, signatures[i], 0)
+    }
+
+    @Benchmark
+    fun cached(): Boolean = nextIndex().let { i -> cache.verify(rawPublicKeys[i], signatures[i], message) }
+}
@@ -0,0 +1,40 @@
+package did.create.cheqd
+
+import id.walt.did.dids.registrar.dids.DidCheqdCreateOptions
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+import kotlin.time.Duration.Companion.milliseconds
+
+/**
+ * Registrations per second against a [LocalCheqdLedger] with 50 ms block latency and 2% transient failures, for
+ * batches of [BATCH_SIZE] DIDs with [concurrency] transactions in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+open class CheqdBatchRegistrationBenchmark {
+
+    @Param("1", "16", "128")
+    var concurrency: Int = 0
+
+    private lateinit var batch: CheqdBatchRegistrar
+    private val options = List(BATCH_SIZE) { DidCheqdCreateOptions(network = "testnet") }
+
+    @Setup
+    fun setUp() {
+        val ledger = LocalCheqdLedger(writeLatency = { 50.milliseconds }, readLatency = { 5.milliseconds }, failureRate = 0.02)
+        batch = CheqdBatchRegistrar(LocalCheqdRegistrar(ledger), concurrency = concurrency, baseBackoff = 10.milliseconds)
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    fun registerBatch(): Int = runBlocking { batch.registerAll(options).succeeded }
+
+    companion object {
+        const val BATCH_SIZE = 256
+    }
+}
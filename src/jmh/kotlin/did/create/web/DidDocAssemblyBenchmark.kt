@@ -0,0 +1,61 @@
+package did.create.web
+
+import id.walt.crypto.keys.Key
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.did.dids.DidService
+import id.walt.did.dids.registrar.dids.DidDocConfig
+import id.walt.did.dids.registrar.dids.DidWebCreateOptions
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Rebuilding a did:web document for an unchanged set of [keyCount] public keys: `DidDocConfig.buildFromPublicKeySet`
+ * with and without registration, [VerificationMethodCache.didDocConfig] with registration (the registrar still
+ * exports every key), and the document assembled and registered directly from cached fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class DidDocAssemblyBenchmark {
+
+    @Param("3", "30", "300")
+    var keyCount: Int = 0
+
+    private lateinit var publicKeys: Set<Key>
+    private val did = "did:web:wallet.walt-test.cloud:wallet-api:registry:1111"
+
+    @Setup
+    fun setUp() = runBlocking {
+        DidService.minimalInit()
+        publicKeys = List(keyCount) { JWKKey.generate(if (it % 2 == 0) KeyType.Ed25519 else KeyType.secp256r1).getPublicKey() }.toSet()
+        VerificationMethodCache.assembleDocument(did, publicKeys)
+    }
+
+    private fun register(config: DidDocConfig): Any = runBlocking {
+        DidService.register(DidWebCreateOptions(domain = "wallet.walt-test.cloud", path = "/wallet-api/registry/1111", didDocConfig = config))
+    }
+
+    @Benchmark
+    fun buildFromPublicKeySet(): Any = runBlocking { DidDocConfig.buildFromPublicKeySet(publicKeySet = publicKeys) }
+
+    @Benchmark
+    fun buildFromPublicKeySetAndRegister(): Any = register(runBlocking { DidDocConfig.buildFromPublicKeySet(publicKeySet = publicKeys) })
+
+    @Benchmark
+    fun cachedConfig(): Any = runBlocking { VerificationMethodCache.didDocConfig(publicKeys) }
+
+    @Benchmark
+    fun cachedConfigAndRegister(): Any = register(runBlocking { VerificationMethodCache.didDocConfig(publicKeys) })
+
+    @Benchmark
+    fun assembledFromFragments(): Any = runBlocking { VerificationMethodCache.assembleDocument(did, publicKeys) }
+
+    @Benchmark
+    fun registeredFromFragments(): Any =
+        runBlocking { VerificationMethodCache.registerDidWeb("wallet.walt-test.cloud", "/wallet-api/registry/1111", publicKeys) }
+}
@@ -0,0 +1,55 @@
+package mdoc
+
+import id.walt.mdoc.doc.MDoc
+import id.walt.mdoc.doc.MDocVerificationParams
+import id.walt.mdoc.doc.VerificationType
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Verification stages of an mDL with a [portraitSize]-byte portrait: CBOR decoding, MSO digest validation of all
+ * items, the COSE_Sign1 issuer signature, and the whole `MDoc.verify` against [SelectiveMdocVerifier] for the
+ * [TURNSTILE_REQUEST] elements (both including decoding).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class MdocVerificationBenchmark {
+
+    @Param("1024", "16384", "65536")
+    var portraitSize: Int = 0
+
+    private lateinit var issuer: MdocTestIssuer
+    private lateinit var mdoc: MDoc
+    private lateinit var cbor: ByteArray
+    private lateinit var verifier: SelectiveMdocVerifier
+    private val params = MDocVerificationParams(VerificationType.forIssuance, MdocTestIssuer.ISSUER_KEY_ID)
+
+    @Setup
+    fun setUp() {
+        issuer = MdocTestIssuer()
+        cbor = issuer.issueMdl(portraitSize = portraitSize).toCBOR()
+        mdoc = MDoc.fromCBOR(cbor)
+        verifier = SelectiveMdocVerifier(issuer.cryptoProvider, MdocTestIssuer.ISSUER_KEY_ID)
+        check(mdoc.verify(params, issuer.cryptoProvider)) { "Issued mDL does not verify" }
+        check(verifier.verify(mdoc, TURNSTILE_REQUEST).getOrThrow().values.sumOf { it.size } == 3)
+    }
+
+    @Benchmark
+    fun cborDecode(): MDoc = MDoc.fromCBOR(cbor)
+
+    @Benchmark
+    fun msoDigests(): Boolean = mdoc.verifyIssuerSignedItems()
+
+    @Benchmark
+    fun coseSign1(): Boolean = issuer.cryptoProvider.verify1(mdoc.issuerSigned.issuerAuth!!, MdocTestIssuer.ISSUER_KEY_ID)
+
+    @Benchmark
+    fun fullVerify(): Boolean = MDoc.fromCBOR(cbor).verify(params, issuer.cryptoProvider)
+
+    @Benchmark
+    fun selectiveVerify() = verifier.verify(MDoc.fromCBOR(cbor), TURNSTILE_REQUEST).getOrThrow()
+}
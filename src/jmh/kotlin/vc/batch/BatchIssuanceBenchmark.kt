@@ -0,0 +1,53 @@
+package vc.batch
+
+import crypto.key.rsa.generateRsaKey
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.w3c.vc.vcs.W3CVC
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.*
+import java.util.concurrent.TimeUnit
+
+/**
+ * Issuance throughput (credentials per second) for a batch of [BATCH_SIZE] credentials: one `W3CVC.signJws` per
+ * credential against one [MerkleBatchIssuer] call that signs the tree root once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+open class BatchIssuanceBenchmark {
+
+    @Param("Ed25519", "RSA")
+    var keyType: String = ""
+
+    private lateinit var issuerKey: JWKKey
+    private lateinit var issuerKid: String
+    private lateinit var credentials: List<W3CVC>
+    private val issuerDid = "did:web:issuer.example"
+
+    @Setup
+    fun setUp() = runBlocking {
+        issuerKey = if (keyType == "RSA") generateRsaKey(2048) else JWKKey.generate(KeyType.valueOf(keyType))
+        issuerKid = issuerKey.getKeyId()
+        credentials = List(BATCH_SIZE) { batchCredential(issuerDid, it) }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    fun perCredential(): List<String> = runBlocking {
+        credentials.map { it.signJws(issuerKey = issuerKey, issuerId = issuerDid, issuerKid = issuerKid, subjectDid = "did:example:holder") }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    fun merkleBatch(): List<String> = runBlocking {
+        MerkleBatchIssuer(issuerKey, issuerDid, issuerKid).issue(credentials)
+    }
+
+    companion object {
+        const val BATCH_SIZE = 1_000
+    }
+}
@@ -0,0 +1,60 @@
+package vc.jwt
+
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import org.openjdk.jmh.annotations.*
+import org.openjdk.jmh.infra.Blackhole
+import java.util.Base64
+import java.util.concurrent.TimeUnit
+
+/**
+ * Reading `iss`, `exp`, `vc.type` and `vc.credentialSubject.id` from OpenBadge JWTs with [evidenceCount] evidence
+ * entries: full JSON tree against [LazyJwtCredential]. Run with `-PjmhProfilers=gc` for the allocation rate per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class LazyCredentialBenchmark {
+
+    @Param("0", "50", "500")
+    var evidenceCount: Int = 0
+
+    private lateinit var jwt: String
+
+    @Setup
+    fun setUp() = runBlocking {
+        jwt = largeOpenBadgeJwt(evidenceCount)
+        val view = LazyJwtCredential.parse(jwt)
+        check(view.toJsonObject() == fullPayload()) { "Lazy view does not match the decoded payload" }
+        check(view.issuer == (fullPayload()["iss"] as JsonPrimitive).content)
+        check(view.types == listOf("VerifiableCredential", "OpenBadgeCredential"))
+    }
+
+    private fun fullPayload() =
+        Json.parseToJsonElement(Base64.getUrlDecoder().decode(jwt.substring(jwt.indexOf('.') + 1, jwt.lastIndexOf('.'))).decodeToString()).jsonObject
+
+    @Benchmark
+    fun fullJsonTree(blackhole: Blackhole) {
+        val payload = fullPayload()
+        val vc = payload.getValue("vc").jsonObject
+        blackhole.consume(payload["iss"])
+        blackhole.consume(payload["exp"])
+        blackhole.consume(vc["type"])
+        blackhole.consume(vc.getValue("credentialSubject").jsonObject["id"])
+    }
+
+    @Benchmark
+    fun lazyView(blackhole: Blackhole) {
+        val view = LazyJwtCredential.parse(jwt)
+        blackhole.consume(view.issuer)
+        blackhole.consume(view.expiresAt)
+        blackhole.consume(view.types)
+        blackhole.consume(view.subjectId)
+    }
+}
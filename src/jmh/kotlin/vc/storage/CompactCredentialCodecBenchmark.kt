@@ -0,0 +1,51 @@
+package vc.storage
+
+import kotlinx.coroutines.runBlocking
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.jsonObject
+import org.openjdk.jmh.annotations.*
+import vc.jwt.largeOpenBadgeJwt
+import java.util.Base64
+import java.util.concurrent.TimeUnit
+
+/**
+ * Archive encode / decode of OpenBadge JWTs with [evidenceCount] evidence entries: [CompactCredentialCodec] against
+ * keeping the decoded JSON payload (parse and re-serialize). Sizes are printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+open class CompactCredentialCodecBenchmark {
+
+    @Param("0", "200")
+    var evidenceCount: Int = 0
+
+    private lateinit var jws: String
+    private lateinit var envelope: ByteArray
+    private lateinit var payloadJson: ByteArray
+
+    @Setup
+    fun setUp() = runBlocking {
+        jws = largeOpenBadgeJwt(evidenceCount)
+        envelope = CompactCredentialCodec.encodeJws(jws)
+        check(CompactCredentialCodec.decodeJws(envelope) == jws) { "Envelope does not round-trip" }
+        payloadJson = Base64.getUrlDecoder().decode(jws.split('.')[1])
+        println("\nJWS ${jws.length} bytes, payload JSON ${payloadJson.size} bytes, CBOR envelope ${envelope.size} bytes")
+    }
+
+    @Benchmark
+    fun cborEncode(): ByteArray = CompactCredentialCodec.encodeJws(jws)
+
+    @Benchmark
+    fun cborDecode(): String = CompactCredentialCodec.decodeJws(envelope)
+
+    @Benchmark
+    fun jsonEncode(): ByteArray = Json.parseToJsonElement(Base64.getUrlDecoder().decode(jws.split('.')[1]).decodeToString()).toString().encodeToByteArray()
+
+    @Benchmark
+    fun jsonDecode(): JsonObject = Json.parseToJsonElement(payloadJson.decodeToString()).jsonObject
+}
@@ -22,6 +22,10 @@ public class CustomKeyExample extends JavaKey {
 
     private String _xyz;
 
+    // computed on first use and then reused, key IDs end up in every JWS header and DID document
+    private volatile String thumbprint;
+    private volatile String keyId;
+
     public CustomKeyExample(String xyz) {
         this._xyz = xyz;
     }
@@ -143,13 +147,33 @@ public class CustomKeyExample extends JavaKey {
     @NotNull
     @Override
     public String javaGetThumbprint() {
-        return java.util.UUID.randomUUID().toString();
+        String result = thumbprint;
+        if (result == null) {
+            synchronized (this) {
+                result = thumbprint;
+                if (result == null) {
+                    result = java.util.UUID.randomUUID().toString();
+                    thumbprint = result;
+                }
+            }
+        }
+        return result;
     }
 
     @NotNull
     @Override
     public String javaGetKeyId() {
-        return java.util.UUID.randomUUID().toString();
+        String result = keyId;
+        if (result == null) {
+            synchronized (this) {
+                result = keyId;
+                if (result == null) {
+                    result = java.util.UUID.randomUUID().toString();
+                    keyId = result;
+                }
+            }
+        }
+        return result;
     }
 
     @Override
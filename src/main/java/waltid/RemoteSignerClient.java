@@ -0,0 +1,274 @@
+package waltid;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Connection to a {@link RemoteSignerServer}, shared by all {@link RemoteSignerKey}s of that signer.
+ * <p>
+ * Sign calls from all threads are queued and a single sender thread writes them as batches: everything that is
+ * queued (up to {@code maxBatchSize}) goes out in one frame, waiting at most {@code maxBatchDelay} for more calls
+ * to join. The sender does not wait for responses, up to {@code maxInFlight} requests are pipelined on the one
+ * persistent connection and matched to their callers by request ID. A broken connection fails the requests in
+ * flight and is re-established for the next batch.
+ */
+public class RemoteSignerClient implements Closeable {
+
+    private record Pending(long id, byte op, byte[] keyId, byte[] payload, CompletableFuture<byte[]> result) {
+    }
+
+    private final InetSocketAddress address;
+    private final Duration timeout;
+    private final Duration maxBatchDelay;
+    private final int maxBatchSize;
+    private final Semaphore inFlightPermits;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Map<Long, Pending> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final Thread sender;
+
+    private volatile boolean closed;
+    private Socket socket; // guarded by this
+
+    public RemoteSignerClient(InetSocketAddress address) {
+        this(address, Duration.ofSeconds(5), Duration.ofNanos(100_000), 64, 1024);
+    }
+
+    /**
+     * @param timeout       connect timeout and maximum time a sign call waits for its signature
+     * @param maxBatchDelay how long a batch waits for further calls; zero sends whatever is queued right away
+     * @param maxBatchSize  maximum number of sign requests per round trip
+     * @param maxInFlight   maximum number of requests sent but not yet answered
+     */
+    public RemoteSignerClient(InetSocketAddress address, Duration timeout, Duration maxBatchDelay, int maxBatchSize, int maxInFlight) {
+        this.address = address;
+        this.timeout = timeout;
+        this.maxBatchDelay = maxBatchDelay;
+        this.maxBatchSize = maxBatchSize;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.sender = new Thread(this::sendLoop, "remote-signer-sender");
+        this.sender.setDaemon(true);
+        this.sender.start();
+    }
+
+    public CompletableFuture<byte[]> signRaw(String keyId, byte[] plaintext) {
+        return submit(RemoteSignerServer.OP_SIGN_RAW, keyId, plaintext);
+    }
+
+    public CompletableFuture<String> signJws(String keyId, byte[] plaintext, String headersJson) {
+        byte[] headers = headersJson.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = new byte[4 + plaintext.length + headers.length];
+        payload[0] = (byte) (plaintext.length >>> 24);
+        payload[1] = (byte) (plaintext.length >>> 16);
+        payload[2] = (byte) (plaintext.length >>> 8);
+        payload[3] = (byte) plaintext.length;
+        System.arraycopy(plaintext, 0, payload, 4, plaintext.length);
+        System.arraycopy(headers, 0, payload, 4 + plaintext.length, headers.length);
+        return submit(RemoteSignerServer.OP_SIGN_JWS, keyId, payload).thenApply(jws -> new String(jws, StandardCharsets.UTF_8));
+    }
+
+    public CompletableFuture<String> publicKeyJwk(String keyId) {
+        return submit(RemoteSignerServer.OP_PUBLIC_KEY, keyId, new byte[0]).thenApply(jwk -> new String(jwk, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Waits for {@code result} at most for the configured timeout.
+     */
+    <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(false);
+            throw new IllegalStateException("Remote signer did not answer within " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the remote signer", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Remote signing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Average number of requests per round trip so far.
+     */
+    public double averageBatchSize() {
+        long sent = batches.get();
+        return sent == 0 ? 0 : (double) requests.get() / sent;
+    }
+
+    private CompletableFuture<byte[]> submit(byte op, String keyId, byte[] payload) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Remote signer client is closed"));
+        }
+        var pending = new Pending(nextId.incrementAndGet(), op, keyId.getBytes(StandardCharsets.UTF_8), payload, new CompletableFuture<>());
+        // a late response for a timed out or cancelled request is simply dropped
+        pending.result().orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((signature, error) -> {
+                    if (inFlight.remove(pending.id()) != null) {
+                        inFlightPermits.release();
+                    }
+                });
+        queue.add(pending);
+        return pending.result();
+    }
+
+    private void sendLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                Pending first = queue.take();
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                if (batch.size() < maxBatchSize && !maxBatchDelay.isZero()) {
+                    long deadline = System.nanoTime() + maxBatchDelay.toNanos();
+                    Pending next;
+                    while (batch.size() < maxBatchSize
+                            && (next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) != null) {
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) throws InterruptedException {
+        var frame = new RemoteSignerServer.FrameWriter();
+        int count = 0;
+        frame.writeInt(0); // patched below, requests completed in the meantime are skipped
+        for (Pending pending : batch) {
+            if (pending.result().isDone()) {
+                continue;
+            }
+            inFlightPermits.acquire();
+            inFlight.put(pending.id(), pending);
+            if (pending.result().isDone() && inFlight.remove(pending.id()) != null) {
+                inFlightPermits.release();
+                continue;
+            }
+            frame.writeLong(pending.id());
+            frame.writeByte(pending.op());
+            frame.writeShort(pending.keyId().length);
+            frame.write(pending.keyId());
+            frame.writeInt(pending.payload().length);
+            frame.write(pending.payload());
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+
+        byte[] bytes = frame.toFrame();
+        bytes[4] = (byte) (count >>> 24);
+        bytes[5] = (byte) (count >>> 16);
+        bytes[6] = (byte) (count >>> 8);
+        bytes[7] = (byte) count;
+        Socket connection = null;
+        try {
+            connection = connection();
+            OutputStream stream = connection.getOutputStream();
+            stream.write(bytes);
+            stream.flush();
+            batches.incrementAndGet();
+            requests.addAndGet(count);
+        } catch (IOException e) {
+            disconnect(connection, e);
+        }
+    }
+
+    private synchronized Socket connection() throws IOException {
+        if (socket == null) {
+            var newSocket = new Socket();
+            newSocket.setTcpNoDelay(true);
+            newSocket.connect(address, (int) timeout.toMillis());
+            socket = newSocket;
+            var receiver = new Thread(() -> receiveLoop(newSocket), "remote-signer-receiver");
+            receiver.setDaemon(true);
+            receiver.start();
+        }
+        return socket;
+    }
+
+    private void receiveLoop(Socket connection) {
+        try (var in = new DataInputStream(new BufferedInputStream(connection.getInputStream()))) {
+            while (true) {
+                in.readInt(); // frame length
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    long id = in.readLong();
+                    byte status = in.readByte();
+                    byte[] result = new byte[in.readInt()];
+                    in.readFully(result);
+
+                    Pending pending = inFlight.get(id);
+                    if (pending == null) {
+                        continue;
+                    }
+                    if (status == RemoteSignerServer.STATUS_OK) {
+                        pending.result().complete(result);
+                    } else {
+                        pending.result().completeExceptionally(new IllegalArgumentException(new String(result, StandardCharsets.UTF_8)));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                disconnect(connection, e);
+            }
+        }
+    }
+
+    private synchronized void disconnect(Socket connection, IOException cause) {
+        if (connection != null) {
+            if (connection != socket) {
+                return; // already replaced by a new connection
+            }
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            socket = null;
+        }
+        // requests on the broken connection would never be answered
+        for (Pending pending : inFlight.values()) {
+            pending.result().completeExceptionally(new IOException("Connection to remote signer lost", cause));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        sender.interrupt();
+        Socket connection;
+        synchronized (this) {
+            connection = socket;
+        }
+        disconnect(connection, new IOException("Remote signer client closed"));
+    }
+}
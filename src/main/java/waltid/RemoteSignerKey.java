@@ -0,0 +1,177 @@
+package waltid;
+
+import id.walt.crypto.keys.JavaKey;
+import id.walt.crypto.keys.Key;
+import id.walt.crypto.keys.KeyMeta;
+import id.walt.crypto.keys.KeyType;
+import id.walt.crypto.keys.jwk.JWKKey;
+import kotlin.Result;
+import kotlinx.serialization.json.JsonElement;
+import kotlinx.serialization.json.JsonObject;
+import org.intellij.lang.annotations.Language;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Key whose private part lives in a separate signing process (KMS/HSM) reached through a {@link RemoteSignerClient}.
+ * Signing goes over the wire, everything else is answered locally from the public key fetched on {@link #connect}.
+ */
+public class RemoteSignerKey extends JavaKey {
+
+    private final RemoteSignerClient client;
+    private final String remoteKeyId;
+    private final JWKKey publicKey;
+    private final String keyId;
+    private final String thumbprint;
+    private final String publicJwk;
+
+    private RemoteSignerKey(RemoteSignerClient client, String remoteKeyId, JWKKey publicKey) {
+        this.client = client;
+        this.remoteKeyId = remoteKeyId;
+        this.publicKey = publicKey;
+        this.keyId = publicKey.getKeyIdBlocking();
+        this.thumbprint = publicKey.getThumbprintBlocking();
+        this.publicJwk = publicKey.exportJWKBlocking();
+    }
+
+    public static RemoteSignerKey connect(RemoteSignerClient client, String remoteKeyId) {
+        String jwk = client.await(client.publicKeyJwk(remoteKeyId));
+        JWKKey publicKey = getOrThrow(JWKKey.Companion.importJWKBlocking(jwk));
+        return new RemoteSignerKey(client, remoteKeyId, publicKey);
+    }
+
+    public static void runRemoteSignerExample() throws Exception {
+        try (var server = new RemoteSignerServer(Duration.ofMillis(2));
+             var client = new RemoteSignerClient(server.getAddress())) {
+            String remoteKeyId = server.addKey((JWKKey) JWKKey.Companion.generateBlocking(KeyType.Ed25519, null));
+            var key = RemoteSignerKey.connect(client, remoteKeyId);
+            System.out.println("Remote key: " + key.getKeyType() + ", kid " + key.javaGetKeyId());
+
+            var plaintext = "plaintext".getBytes(StandardCharsets.UTF_8);
+            var signed = key.javaSignRaw(plaintext);
+            System.out.println("Remote signed raw: " + signed.length + " bytes");
+            System.out.println("Verified: " + new String(key.javaVerifyRaw(signed, plaintext), StandardCharsets.UTF_8));
+
+            var jws = key.javaSignJws("{\"sub\": \"remote\"}".getBytes(StandardCharsets.UTF_8), Map.of());
+            System.out.println("Remote signed JWS: " + jws);
+            System.out.println("Verified JWS payload: " + key.javaVerifyJws(jws));
+
+            // concurrent sign calls are coalesced, 256 signatures need far fewer than 256 round trips
+            ExecutorService callers = Executors.newFixedThreadPool(32);
+            try {
+                long start = System.nanoTime();
+                var signatures = new ArrayList<CompletableFuture<byte[]>>();
+                for (int i = 0; i < 256; i++) {
+                    byte[] message = ("message " + i).getBytes(StandardCharsets.UTF_8);
+                    signatures.add(CompletableFuture.supplyAsync(() -> key.javaSignRaw(message), callers));
+                }
+                CompletableFuture.allOf(signatures.toArray(CompletableFuture[]::new)).join();
+                System.out.printf("256 concurrent signatures in %d ms, average batch size %.1f%n",
+                        (System.nanoTime() - start) / 1_000_000, client.averageBatchSize());
+            } finally {
+                callers.shutdown();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        runRemoteSignerExample();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T getOrThrow(Object result) {
+        if (result instanceof Result.Failure failure) {
+            throw new IllegalArgumentException(failure.exception.getMessage(), failure.exception);
+        }
+        return (T) result;
+    }
+
+    @NotNull
+    @Override
+    public KeyMeta javaGetMeta() {
+        return publicKey.getMetaBlocking();
+    }
+
+    @NotNull
+    @Override
+    public byte[] javaGetPublicKeyRepresentation() {
+        return publicKey.getPublicKeyRepresentationBlocking();
+    }
+
+    @NotNull
+    @Override
+    public Key javaGetPublicKey() {
+        return publicKey;
+    }
+
+    public byte[] javaVerifyRaw(@NotNull byte[] signed, @Nullable byte[] detachedPlaintext) {
+        return getOrThrow(publicKey.verifyRawBlocking(signed, detachedPlaintext, null));
+    }
+
+    @NotNull
+    public JsonElement javaVerifyJws(@Language(value = "json") @NotNull String signedJws) {
+        return getOrThrow(publicKey.verifyJwsBlocking(signedJws));
+    }
+
+    @Override
+    public @NotNull String javaSignJws(@NotNull byte[] bytes, @NotNull Map<String, ? extends JsonElement> map) {
+        String headers = new JsonObject(Map.copyOf(map)).toString();
+        return client.await(client.signJws(remoteKeyId, bytes, headers));
+    }
+
+    @NotNull
+    @Override
+    public byte[] javaSignRaw(@NotNull byte[] plaintext) {
+        return client.await(client.signRaw(remoteKeyId, plaintext));
+    }
+
+    @NotNull
+    @Override
+    public String javaExportPEM() {
+        return publicKey.exportPEMBlocking();
+    }
+
+    @NotNull
+    @Override
+    public JsonObject javaExportJWKObject() {
+        return publicKey.exportJWKObjectBlocking();
+    }
+
+    @NotNull
+    @Override
+    public String javaExportJWK() {
+        return publicJwk;
+    }
+
+    @NotNull
+    @Override
+    public String javaGetThumbprint() {
+        return thumbprint;
+    }
+
+    @NotNull
+    @Override
+    public String javaGetKeyId() {
+        return keyId;
+    }
+
+    @Override
+    public boolean javaHasPrivateKey() {
+        // the private key is not exportable, but this key can sign
+        return true;
+    }
+
+    @NotNull
+    @Override
+    public KeyType javaGetKeyType() {
+        return publicKey.getKeyType();
+    }
+}
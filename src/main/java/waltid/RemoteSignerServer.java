@@ -0,0 +1,251 @@
+package waltid;
+
+import id.walt.crypto.keys.jwk.JWKKey;
+import kotlinx.serialization.json.Json;
+import kotlinx.serialization.json.JsonElement;
+import kotlinx.serialization.json.JsonElementKt;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for a KMS/HSM signing process. Private keys never leave this class, clients send
+ * batches of sign requests over a socket and receive the signatures (see {@link RemoteSignerClient}).
+ * <p>
+ * Wire format, all integers big endian:
+ * <pre>
+ * request batch:  [int frameLength][int count] count * ([long id][byte op][short kidLength][kid][int payloadLength][payload])
+ * response batch: [int frameLength][int count] count * ([long id][byte status][int length][result or error message])
+ * </pre>
+ * Batches are executed concurrently, so responses of pipelined batches can arrive in any order.
+ */
+public class RemoteSignerServer implements Closeable {
+
+    static final byte OP_SIGN_RAW = 1;
+    static final byte OP_SIGN_JWS = 2;
+    static final byte OP_PUBLIC_KEY = 3;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+
+    private final ServerSocket serverSocket;
+    private final Map<String, JWKKey> keys = new ConcurrentHashMap<>();
+    private final ExecutorService workers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "remote-signer-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Duration simulatedLatency;
+
+    /**
+     * @param simulatedLatency added once per batch, models the round trip to a real HSM or cloud KMS
+     */
+    public RemoteSignerServer(Duration simulatedLatency) throws IOException {
+        this.simulatedLatency = simulatedLatency;
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        workers.submit(this::acceptLoop);
+    }
+
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    /**
+     * Hands a private key to the signer and returns the key ID clients use to address it.
+     */
+    public String addKey(JWKKey key) {
+        String keyId = key.getKeyIdBlocking();
+        keys.put(keyId, key);
+        return keyId;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                workers.submit(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.out.println("Remote signer: accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             var in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             var out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (true) {
+                Request[] batch = readBatch(in);
+                // keep reading the next pipelined batch while this one is signed
+                workers.submit(() -> {
+                    byte[] response = executeBatch(batch);
+                    synchronized (out) {
+                        try {
+                            out.write(response);
+                            out.flush();
+                        } catch (IOException e) {
+                            closeQuietly(socket);
+                        }
+                    }
+                });
+            }
+        } catch (EOFException e) {
+            // client closed the connection
+        } catch (IOException e) {
+            if (!serverSocket.isClosed()) {
+                System.out.println("Remote signer: connection failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private record Request(long id, byte op, String keyId, byte[] payload) {
+    }
+
+    private static Request[] readBatch(DataInputStream in) throws IOException {
+        in.readInt(); // frame length, the batch is parsed field by field
+        Request[] batch = new Request[in.readInt()];
+        for (int i = 0; i < batch.length; i++) {
+            long id = in.readLong();
+            byte op = in.readByte();
+            byte[] keyId = new byte[in.readUnsignedShort()];
+            in.readFully(keyId);
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            batch[i] = new Request(id, op, new String(keyId, StandardCharsets.UTF_8), payload);
+        }
+        return batch;
+    }
+
+    private byte[] executeBatch(Request[] batch) {
+        if (!simulatedLatency.isZero()) {
+            try {
+                Thread.sleep(simulatedLatency.toMillis(), simulatedLatency.toNanosPart() % 1_000_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        var frame = new FrameWriter();
+        frame.writeInt(batch.length);
+        for (Request request : batch) {
+            byte status = STATUS_OK;
+            byte[] result;
+            try {
+                result = execute(request);
+            } catch (Exception e) {
+                status = STATUS_ERROR;
+                result = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            }
+            frame.writeLong(request.id());
+            frame.writeByte(status);
+            frame.writeInt(result.length);
+            frame.write(result);
+        }
+        return frame.toFrame();
+    }
+
+    private byte[] execute(Request request) {
+        JWKKey key = keys.get(request.keyId());
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown key: " + request.keyId());
+        }
+        return switch (request.op()) {
+            case OP_SIGN_RAW -> (byte[]) key.signRawBlocking(request.payload(), null);
+            case OP_SIGN_JWS -> signJws(key, request.payload());
+            case OP_PUBLIC_KEY -> key.getPublicKeyBlocking().exportJWKBlocking().getBytes(StandardCharsets.UTF_8);
+            default -> throw new IllegalArgumentException("Unknown operation: " + request.op());
+        };
+    }
+
+    // JWS payload: [int plaintextLength][plaintext][headers as JSON object]
+    private static byte[] signJws(JWKKey key, byte[] payload) {
+        int plaintextLength = ((payload[0] & 0xff) << 24) | ((payload[1] & 0xff) << 16) | ((payload[2] & 0xff) << 8) | (payload[3] & 0xff);
+        byte[] plaintext = new byte[plaintextLength];
+        System.arraycopy(payload, 4, plaintext, 0, plaintextLength);
+        String headersJson = new String(payload, 4 + plaintextLength, payload.length - 4 - plaintextLength, StandardCharsets.UTF_8);
+        Map<String, JsonElement> headers = JsonElementKt.getJsonObject(Json.Default.parseToJsonElement(headersJson));
+        return key.signJwsBlocking(plaintext, headers).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Collects the body of a frame and prefixes it with its length.
+     */
+    static final class FrameWriter {
+        private byte[] buffer = new byte[256];
+        private int size = 4;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) value;
+        }
+
+        void writeShort(int value) {
+            writeByte(value >>> 8);
+            writeByte(value);
+        }
+
+        void writeInt(int value) {
+            writeShort(value >>> 16);
+            writeShort(value);
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, size, bytes.length);
+            size += bytes.length;
+        }
+
+        byte[] toFrame() {
+            int length = size - 4;
+            buffer[0] = (byte) (length >>> 24);
+            buffer[1] = (byte) (length >>> 16);
+            buffer[2] = (byte) (length >>> 8);
+            buffer[3] = (byte) length;
+            return Arrays.copyOf(buffer, size);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+            }
+        }
+    }
+}
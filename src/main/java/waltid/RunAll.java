@@ -3,6 +3,7 @@ package waltid;
 import static waltid.CustomKeyExample.runCustomKeyExample;
 import static waltid.DidExamples.runDidExample;
 import static waltid.KeysExamples.runKeyExample;
+import static waltid.RemoteSignerKey.runRemoteSignerExample;
 import static waltid.VcExamples.runVcExample;
 
 public class RunAll {
@@ -11,5 +12,6 @@ public class RunAll {
         runDidExample();
         runVcExample();
         runCustomKeyExample();
+        runRemoteSignerExample();
     }
 }
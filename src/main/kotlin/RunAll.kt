@@ -2,6 +2,7 @@ import crypto.key.create.createEd25519
 import crypto.key.create.createRSA
 import crypto.key.create.createSecp256k1
 import crypto.key.create.createSecp256r1
+import crypto.key.decode.bulk.importKeyBundles
 import crypto.key.decode.jwk.importEd25519Jwk
 import crypto.key.decode.jwk.importRSAJwk
 import crypto.key.decode.jwk.importSecp256k1Jwk
@@ -21,6 +22,9 @@ import crypto.key.encode.raw.exportEd25519RawPublicKey
 import crypto.key.encode.raw.exportRSARawPublicKey
 import crypto.key.encode.raw.exportSecp256k1RawPublicKey
 import crypto.key.encode.raw.exportSecp256r1RawPublicKey
+import crypto.key.rsa.accelerateRsaSigning
+import crypto.key.store.storeAndLoadKeys
+import crypto.key.thumbprint.computeThumbprints
 import crypto.signatures.jws.signVerifyJwsEd25519Key
 import crypto.signatures.jws.signVerifyJwsRSAKey
 import crypto.signatures.jws.signVerifyJwsSecp256k1Key
@@ -29,18 +33,34 @@ import crypto.signatures.raw.signVerifyRawEd25519Key
 import crypto.signatures.raw.signVerifyRawRSAKey
 import crypto.signatures.raw.signVerifyRawSecp256k1Key
 import crypto.signatures.raw.signVerifyRawSecp256r1Key
+import crypto.signatures.raw.signWithFixedBaseEcdsa
+import crypto.signatures.raw.verifyEd25519WithCache
+import did.create.cheqd.createDidCheqdLocally
 import did.create.createDidCheqd
 import did.create.createDidJwk
 import did.create.createDidKey
+import did.create.provisionDidsInBulk
 import did.create.web.createDidWeb
 import did.resolve.resolveDidJwk
 import did.resolve.resolveDidKey
 import did.resolve.resolveDidWeb
+import did.resolve.resolveDidWebWithHedging
+import mdoc.issueAndVerifyMdl
+import vc.batch.issueMerkleBatch
+import vc.jsonld.resolveContextsOffline
+import vc.jwt.readClaimsLazily
 import vc.jwt.signJwtVc
 import vc.jwt.verifyJwtVc
+import vc.policies.verifyWithPolicyPlanner
+import vc.policies.verifyWithResultCache
+import vc.policies.verifyWithTrustRegistry
+import vc.policies.verifyWithTypeIndexedPolicies
 import vc.sdjwt.signSdJwtVc
+import vc.status.issueAndRevokeWithStatusList
+import vc.storage.storeCredentialsCompactly
 import vp.signVP
 import vp.verifyVP
+import vp.verifyVPWithReplayGuard
 
 
 suspend fun main() {
@@ -120,6 +140,9 @@ suspend fun main() {
     importSecp256k1RawPublicKey()
     println("importSecp256r1RawPublicKey() ---------------------------------------------------------------------------")
     importSecp256r1RawPublicKey()
+    // Bundles
+    println("importKeyBundles() --------------------------------------------------------------------------------------")
+    importKeyBundles()
     // Import End
     // Signatures Start
     // JWS
@@ -140,19 +163,36 @@ suspend fun main() {
     signVerifyRawSecp256k1Key()
     println("signVerifyRawSecp256r1Key() -----------------------------------------------------------------------------")
     signVerifyRawSecp256r1Key()
+    println("verifyEd25519WithCache() --------------------------------------------------------------------------------")
+    verifyEd25519WithCache()
+    println("signWithFixedBaseEcdsa() --------------------------------------------------------------------------------")
+    signWithFixedBaseEcdsa()
     //Signatures End
+    // Thumbprints
+    println("computeThumbprints() ------------------------------------------------------------------------------------")
+    computeThumbprints()
+    // Key Store
+    println("storeAndLoadKeys() --------------------------------------------------------------------------------------")
+    storeAndLoadKeys()
+    // RSA
+    println("accelerateRsaSigning() ----------------------------------------------------------------------------------")
+    accelerateRsaSigning()
     // Crypto End
 
     // DID Start
     // Create
     println("createDidCheqd() ----------------------------------------------------------------------------------------")
     //createDidCheqd()
+    println("createDidCheqdLocally() ---------------------------------------------------------------------------------")
+    createDidCheqdLocally()
     println("createDidJwk() ------------------------------------------------------------------------------------------")
     createDidJwk()
     println("createDidKey() ------------------------------------------------------------------------------------------")
     createDidKey()
     println("createDidWeb() ------------------------------------------------------------------------------------------")
     createDidWeb()
+    println("provisionDidsInBulk() -----------------------------------------------------------------------------------")
+    provisionDidsInBulk()
     // Resolve
     println("resolveDidJwk() -----------------------------------------------------------------------------------------")
     resolveDidJwk()
@@ -160,6 +200,8 @@ suspend fun main() {
     resolveDidKey()
     println("resolveDidWeb() -----------------------------------------------------------------------------------------")
     resolveDidWeb()
+    println("resolveDidWebWithHedging() ------------------------------------------------------------------------------")
+    resolveDidWebWithHedging()
     // DID End
 
     // VC Start
@@ -168,16 +210,46 @@ suspend fun main() {
     signJwtVc()
     println("verifyJwtVc() -------------------------------------------------------------------------------------------")
     verifyJwtVc()
+    println("readClaimsLazily() --------------------------------------------------------------------------------------")
+    readClaimsLazily()
     // SD-JWT
     println("signSdJwtVc() -------------------------------------------------------------------------------------------")
     signSdJwtVc()
     println("verifyJwtVc() -------------------------------------------------------------------------------------------")
     verifyJwtVc()
+    // Status List
+    println("issueAndRevokeWithStatusList() --------------------------------------------------------------------------")
+    issueAndRevokeWithStatusList()
+    // Policies
+    println("verifyWithPolicyPlanner() -------------------------------------------------------------------------------")
+    verifyWithPolicyPlanner()
+    println("verifyWithTypeIndexedPolicies() -------------------------------------------------------------------------")
+    verifyWithTypeIndexedPolicies()
+    println("verifyWithResultCache() ---------------------------------------------------------------------------------")
+    verifyWithResultCache()
+    println("verifyWithTrustRegistry() -------------------------------------------------------------------------------")
+    verifyWithTrustRegistry()
+    // JSON-LD Contexts
+    println("resolveContextsOffline() --------------------------------------------------------------------------------")
+    resolveContextsOffline()
+    // Batch Issuance
+    println("issueMerkleBatch() --------------------------------------------------------------------------------------")
+    issueMerkleBatch()
+    // Storage
+    println("storeCredentialsCompactly() -----------------------------------------------------------------------------")
+    storeCredentialsCompactly()
     // VC End
     // VP Start
     println("signVP() ------------------------------------------------------------------------------------------------")
     signVP()
     println("verifyVP() ----------------------------------------------------------------------------------------------")
     verifyVP()
+    println("verifyVPWithReplayGuard() -------------------------------------------------------------------------------")
+    verifyVPWithReplayGuard()
     // VP End
+
+    // mdoc Start
+    println("issueAndVerifyMdl() -------------------------------------------------------------------------------------")
+    issueAndVerifyMdl()
+    // mdoc End
 }
\ No newline at end of file
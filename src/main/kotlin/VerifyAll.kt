@@ -0,0 +1,19 @@
+import vc.jwt.verifyJwtVc
+import vc.policies.verifyWithPolicyPlanner
+import vc.sdjwt.verifySdJwtVc
+import vp.verifyVP
+
+/**
+ * The verification examples only, the entry point of the `verify` native image
+ * (see `scripts/startup-comparison.sh`).
+ */
+suspend fun main() {
+    println("verifyJwtVc() -------------------------------------------------------------------------------------------")
+    verifyJwtVc()
+    println("verifySdJwtVc() -----------------------------------------------------------------------------------------")
+    verifySdJwtVc()
+    println("verifyVP() ----------------------------------------------------------------------------------------------")
+    verifyVP()
+    println("verifyWithPolicyPlanner() -------------------------------------------------------------------------------")
+    verifyWithPolicyPlanner()
+}
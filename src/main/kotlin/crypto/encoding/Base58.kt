@@ -0,0 +1,173 @@
+package crypto.encoding
+
+/**
+ * Base58 (Bitcoin alphabet) codec working on machine words instead of single digits.
+ *
+ * Encoding converts 32-bit input words into limbs of base 58^5 (< 2^32, five output digits each), decoding converts
+ * chunks of five digits into 32-bit limbs. The conversion stays quadratic, but with about 20x fewer and cheaper
+ * steps than the digit-by-digit schoolbook algorithm, which matters for RSA-size inputs. Limbs live in per-thread
+ * scratch buffers, so the only allocation per call is the result.
+ */
+object Base58 {
+
+    private const val ALPHABET = "123456789ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz"
+
+    // 58^5, the largest power of 58 below 2^32
+    private const val LIMB_BASE = 656_356_768L
+    private val POWERS = longArrayOf(1, 58, 3_364, 195_112, 11_316_496, LIMB_BASE)
+
+    private val DIGITS = ALPHABET.encodeToByteArray()
+
+    // two digits per lookup: index 2 * n holds the high digit of n in 0 until 58 * 58
+    private val DIGIT_PAIRS = ByteArray(2 * 58 * 58).also { pairs ->
+        for (n in 0 until 58 * 58) {
+            pairs[2 * n] = DIGITS[n / 58]
+            pairs[2 * n + 1] = DIGITS[n % 58]
+        }
+    }
+
+    private val DECODE = IntArray(128) { -1 }.also { table ->
+        ALPHABET.forEachIndexed { digit, char -> table[char.code] = digit }
+    }
+
+    private class Scratch {
+        var limbs = IntArray(128)
+        var output = ByteArray(512)
+
+        fun limbs(size: Int): IntArray {
+            if (limbs.size < size) limbs = IntArray(maxOf(size, limbs.size * 2))
+            return limbs
+        }
+
+        fun output(size: Int): ByteArray {
+            if (output.size < size) output = ByteArray(maxOf(size, output.size * 2))
+            return output
+        }
+    }
+
+    private val scratch = ThreadLocal.withInitial { Scratch() }
+
+    fun encode(bytes: ByteArray): String = encode(bytes, prefix = null)
+
+    /**
+     * Encodes [bytes], optionally preceded by [prefix] (e.g. the multibase `z`) without an extra copy.
+     */
+    internal fun encode(bytes: ByteArray, prefix: Char?): String {
+        var zeros = 0
+        while (zeros < bytes.size && bytes[zeros].toInt() == 0) zeros++
+        val significant = bytes.size - zeros
+
+        val buffers = scratch.get()
+        // log(256) / log(58) = 1.3658 digits per byte
+        val limbs = buffers.limbs((significant * 1.3658 / 5).toInt() + 2)
+        var size = 0
+
+        var position = zeros
+        var take = if (significant % 4 == 0) 4 else significant % 4
+        while (position < bytes.size) {
+            var carry = 0L
+            repeat(take) { carry = (carry shl 8) or (bytes[position++].toLong() and 0xff) }
+            val shift = take * 8
+            take = 4
+
+            for (j in 0 until size) {
+                val value = ((limbs[j].toLong() and 0xffffffffL) shl shift) + carry
+                limbs[j] = (value % LIMB_BASE).toInt()
+                carry = value / LIMB_BASE
+            }
+            while (carry != 0L) {
+                limbs[size++] = (carry % LIMB_BASE).toInt()
+                carry /= LIMB_BASE
+            }
+        }
+
+        val prefixLength = if (prefix != null) 1 else 0
+        val output = buffers.output(prefixLength + zeros + size * 5)
+        var end = prefixLength + zeros + size * 5
+        for (j in 0 until size) {
+            var limb = limbs[j].toLong() and 0xffffffffL
+            val low = (limb % 3_364).toInt()
+            limb /= 3_364
+            val middle = (limb % 3_364).toInt()
+            output[--end] = DIGIT_PAIRS[2 * low + 1]
+            output[--end] = DIGIT_PAIRS[2 * low]
+            output[--end] = DIGIT_PAIRS[2 * middle + 1]
+            output[--end] = DIGIT_PAIRS[2 * middle]
+            output[--end] = DIGITS[(limb / 3_364).toInt()]
+        }
+
+        // the top limb is padded with leading zero digits, replace them by one '1' per leading zero byte
+        var start = prefixLength + zeros
+        val length = prefixLength + zeros + size * 5
+        while (start < length && output[start] == DIGITS[0]) start++
+        start -= zeros
+        output.fill(DIGITS[0], start, start + zeros)
+        if (prefix != null) output[--start] = prefix.code.toByte()
+        return String(output, start, length - start, Charsets.ISO_8859_1)
+    }
+
+    fun decode(encoded: String): ByteArray = decode(encoded, 0)
+
+    internal fun decode(encoded: String, offset: Int): ByteArray {
+        var ones = offset
+        while (ones < encoded.length && encoded[ones] == '1') ones++
+        val leadingZeros = ones - offset
+        val significant = encoded.length - ones
+
+        // log(58) / log(256) = 0.7322 bytes per digit
+        val limbs = scratch.get().limbs((significant * 0.7322 / 4).toInt() + 2)
+        var size = 0
+
+        var position = ones
+        var take = if (significant % 5 == 0) 5 else significant % 5
+        while (position < encoded.length) {
+            var carry = 0L
+            repeat(take) {
+                val char = encoded[position]
+                val digit = if (char.code < 128) DECODE[char.code] else -1
+                require(digit >= 0) { "Invalid Base58 character '$char' at index $position" }
+                carry = carry * 58 + digit
+                position++
+            }
+            val multiplier = POWERS[take]
+            take = 5
+
+            for (j in 0 until size) {
+                val value = (limbs[j].toLong() and 0xffffffffL) * multiplier + carry
+                limbs[j] = value.toInt()
+                carry = value ushr 32
+            }
+            while (carry != 0L) {
+                limbs[size++] = carry.toInt()
+                carry = carry ushr 32
+            }
+        }
+
+        val topZeroBytes = if (size == 0) 0 else Integer.numberOfLeadingZeros(limbs[size - 1]) / 8
+        val result = ByteArray(leadingZeros + size * 4 - topZeroBytes)
+        var end = result.size
+        for (j in 0 until size) {
+            var limb = limbs[j]
+            var k = 0
+            while (k < 4 && end > leadingZeros) {
+                result[--end] = limb.toByte()
+                limb = limb ushr 8
+                k++
+            }
+        }
+        return result
+    }
+}
+
+/**
+ * Multibase strings as used by `did:key` and `publicKeyMultibase`. Only base58btc (`z`) is supported.
+ */
+object Multibase {
+
+    fun encodeBase58Btc(bytes: ByteArray): String = Base58.encode(bytes, prefix = 'z')
+
+    fun decode(multibase: String): ByteArray {
+        require(multibase.startsWith('z')) { "Unsupported multibase encoding '${multibase.firstOrNull()}', only base58btc (z) is supported" }
+        return Base58.decode(multibase, offset = 1)
+    }
+}
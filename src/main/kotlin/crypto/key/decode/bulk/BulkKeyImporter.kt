@@ -0,0 +1,109 @@
+package crypto.key.decode.bulk
+
+import crypto.key.rsa.RsaCrt
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import java.nio.file.Files
+import java.nio.file.Path
+
+class KeyImportFailure(val index: Int, val location: String, val message: String)
+
+class KeyImportReport(
+    val imported: Int,
+    val failed: Int,
+    /** The first failures, at most `maxReportedFailures` of them. */
+    val failures: List<KeyImportFailure>,
+    /** Set if the bundle itself could not be read to the end, entries before that point were still imported. */
+    val inputError: String?,
+) {
+    override fun toString() = "$imported imported, $failed failed" + (inputError?.let { ", input error: $it" } ?: "")
+}
+
+/**
+ * Imports the keys of large PEM bundles and JWKS documents.
+ *
+ * The bundle is scanned on [Dispatchers.IO] and entries are handed to [parallelism] import workers through a channel
+ * of [bufferSize] entries, so only a bounded number of entries is in memory at any time. Every entry that fails to
+ * import is reported and skipped, the run continues with the next one.
+ */
+class BulkKeyImporter(
+    private val parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    private val bufferSize: Int = 1024,
+    private val maxReportedFailures: Int = 1000,
+) {
+
+    suspend fun importPemBundle(file: Path, onImported: suspend (KeyEntry, JWKKey) -> Unit): KeyImportReport =
+        Files.newBufferedReader(file).use { import(pemEntries(it), onImported) }
+
+    suspend fun importJwks(file: Path, onImported: suspend (KeyEntry, JWKKey) -> Unit): KeyImportReport =
+        Files.newBufferedReader(file).use { import(jwksEntries(it), onImported) }
+
+    /**
+     * Imports all [entries]. [onImported] is called for every imported key, sequentially and in completion order.
+     */
+    suspend fun import(entries: Sequence<KeyEntry>, onImported: suspend (KeyEntry, JWKKey) -> Unit): KeyImportReport = coroutineScope {
+        val pending = Channel<KeyEntry>(bufferSize)
+        val results = Channel<Pair<KeyEntry, Result<JWKKey>>>(bufferSize)
+        var inputError: String? = null
+
+        launch(Dispatchers.IO) {
+            try {
+                entries.forEach { pending.send(it) }
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                inputError = e.message ?: e.toString()
+            } finally {
+                pending.close()
+            }
+        }
+        val workers = List(parallelism) {
+            launch(Dispatchers.Default) {
+                for (entry in pending) results.send(entry to importEntry(entry))
+            }
+        }
+        launch {
+            workers.joinAll()
+            results.close()
+        }
+
+        var imported = 0
+        var failed = 0
+        val failures = ArrayList<KeyImportFailure>()
+        for ((entry, result) in results) {
+            result.fold(
+                onSuccess = { key ->
+                    imported++
+                    onImported(entry, key)
+                },
+                onFailure = { error ->
+                    failed++
+                    if (failures.size < maxReportedFailures) {
+                        failures += KeyImportFailure(entry.index, entry.location, error.message ?: error.toString())
+                    }
+                },
+            )
+        }
+        KeyImportReport(imported, failed, failures, inputError)
+    }
+
+    private suspend fun importEntry(entry: KeyEntry): Result<JWKKey> {
+        if (entry.problem != null) return Result.failure(IllegalArgumentException(entry.problem))
+        return try {
+            val imported = when (entry.format) {
+                KeyEntryFormat.PEM -> JWKKey.importPEM(entry.content)
+                KeyEntryFormat.JWK -> JWKKey.importJWK(entry.content)
+            }
+            imported.map { RsaCrt.ensureCrt(it) }
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package crypto.key.decode.bulk
+
+import java.io.BufferedReader
+import java.io.Reader
+
+enum class KeyEntryFormat { PEM, JWK }
+
+/**
+ * One key found in a bundle. [problem] is set for entries that were found but cannot be imported,
+ * e.g. a PEM block without an END line.
+ */
+class KeyEntry(
+    val index: Int,
+    val location: String,
+    val format: KeyEntryFormat,
+    val content: String,
+    val problem: String? = null,
+)
+
+/**
+ * Splits a multi-PEM bundle into its blocks while reading it line by line. Text between blocks
+ * (comments, OpenSSL "Bag Attributes", ...) is skipped.
+ */
+fun pemEntries(reader: Reader): Sequence<KeyEntry> = sequence {
+    val lines = reader as? BufferedReader ?: BufferedReader(reader)
+    var index = 0
+    var lineNumber = 0
+    var block: StringBuilder? = null
+    var endLine = ""
+    var startLine = 0
+
+    while (true) {
+        val line = lines.readLine()?.trim() ?: break
+        lineNumber++
+        val begin = line.startsWith("-----BEGIN ") && line.endsWith("-----")
+
+        if (block != null && begin) {
+            yield(KeyEntry(index++, "line $startLine", KeyEntryFormat.PEM, block.toString(), "PEM block has no END line"))
+            block = null
+        }
+        if (block == null) {
+            if (begin) {
+                block = StringBuilder(line).append('\n')
+                endLine = "-----END " + line.removePrefix("-----BEGIN ")
+                startLine = lineNumber
+            }
+            continue
+        }
+
+        block.append(line).append('\n')
+        if (line == endLine) {
+            yield(KeyEntry(index++, "line $startLine", KeyEntryFormat.PEM, block.toString()))
+            block = null
+        }
+    }
+    if (block != null) {
+        yield(KeyEntry(index, "line $startLine", KeyEntryFormat.PEM, block.toString(), "PEM block has no END line"))
+    }
+}
+
+/**
+ * Yields the members of the `keys` array of a JWKS document one by one. Only the structure of the document is
+ * scanned here, each key is copied verbatim and parsed when it is imported; other top-level members are skipped.
+ */
+fun jwksEntries(reader: Reader): Sequence<KeyEntry> = sequence {
+    val scanner = JsonScanner(reader)
+    scanner.expect('{')
+    if (scanner.peekToken() == '}'.code) return@sequence
+
+    var index = 0
+    while (true) {
+        val name = scanner.readString()
+        scanner.expect(':')
+        if (name == "keys") {
+            scanner.expect('[')
+            if (scanner.peekToken() == ']'.code) {
+                scanner.nextToken()
+            } else {
+                while (true) {
+                    scanner.skipWhitespace()
+                    val location = "keys[$index] at offset ${scanner.offset}"
+                    val key = StringBuilder()
+                    scanner.copyValue(key)
+                    yield(KeyEntry(index++, location, KeyEntryFormat.JWK, key.toString()))
+                    if (scanner.separator(']')) break
+                }
+            }
+        } else {
+            scanner.copyValue(null)
+        }
+        if (scanner.separator('}')) break
+    }
+}
+
+private class JsonScanner(private val reader: Reader) {
+
+    private val buffer = CharArray(8192)
+    private var position = 0
+    private var limit = 0
+
+    var offset = 0L
+        private set
+
+    private fun peek(): Int {
+        if (position >= limit) {
+            limit = reader.read(buffer)
+            position = 0
+            if (limit <= 0) return -1
+        }
+        return buffer[position].code
+    }
+
+    private fun read(): Int = peek().also { if (it >= 0) { position++; offset++ } }
+
+    fun skipWhitespace() {
+        while (peek().let { it >= 0 && it.toChar().isWhitespace() }) read()
+    }
+
+    fun peekToken(): Int {
+        skipWhitespace()
+        return peek()
+    }
+
+    fun nextToken(): Int {
+        skipWhitespace()
+        return read()
+    }
+
+    fun expect(token: Char) {
+        if (nextToken() != token.code) fail("expected '$token'")
+    }
+
+    /**
+     * Consumes ',' (returns false) or [end] (returns true).
+     */
+    fun separator(end: Char): Boolean = when (nextToken()) {
+        ','.code -> false
+        end.code -> true
+        else -> fail("expected ',' or '$end'")
+    }
+
+    fun readString(): String {
+        expect('"')
+        val value = StringBuilder()
+        while (true) {
+            when (val c = read()) {
+                -1 -> fail("unterminated string")
+                '"'.code -> return value.toString()
+                '\\'.code -> value.append(read().toChar())
+                else -> value.append(c.toChar())
+            }
+        }
+    }
+
+    /**
+     * Copies the next value to [out] (or skips it if null), leaving the following separator unread.
+     */
+    fun copyValue(out: StringBuilder?) {
+        skipWhitespace()
+        var depth = 0
+        while (true) {
+            val c = peek()
+            if (c < 0) fail("unexpected end of input")
+            val char = c.toChar()
+            if (depth == 0 && (char == ',' || char == '}' || char == ']' || char.isWhitespace())) return
+            read()
+            out?.append(char)
+            when (char) {
+                '"' -> copyStringRest(out)
+                '{', '[' -> depth++
+                '}', ']' -> if (--depth == 0) return
+            }
+        }
+    }
+
+    private fun copyStringRest(out: StringBuilder?) {
+        while (true) {
+            val c = read()
+            if (c < 0) fail("unterminated string")
+            out?.append(c.toChar())
+            when (c) {
+                '"'.code -> return
+                '\\'.code -> read().takeIf { it >= 0 }?.let { out?.append(it.toChar()) }
+            }
+        }
+    }
+
+    private fun fail(message: String): Nothing =
+        throw IllegalArgumentException("Malformed JWKS at offset $offset: $message")
+}
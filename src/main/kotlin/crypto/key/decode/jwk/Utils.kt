@@ -1,9 +1,10 @@
 package crypto.key.decode.jwk
 
+import crypto.key.rsa.RsaCrt
 import id.walt.crypto.keys.jwk.JWKKey
 
 internal suspend fun printImportedJwkStringInfo(jwk: String) {
-    val keyImportResult = JWKKey.importJWK(jwk)
+    val keyImportResult = JWKKey.importJWK(jwk).map { RsaCrt.ensureCrt(it) }
     println("Success: " + keyImportResult.isSuccess)
     if (keyImportResult.isSuccess) {
         println("Getting key from result...")
@@ -1,9 +1,10 @@
 package crypto.key.decode.pem
 
+import crypto.key.rsa.RsaCrt
 import id.walt.crypto.keys.jwk.JWKKey
 
 internal suspend fun printImportedPemStringInfo(pem: String) {
-    val keyImportResult = JWKKey.importPEM(pem)
+    val keyImportResult = JWKKey.importPEM(pem).map { RsaCrt.ensureCrt(it) }
     println("Success: " + keyImportResult.isSuccess)
     if (keyImportResult.isSuccess) {
         println("Getting key from result...")
@@ -1,8 +1,8 @@
 package crypto.key.decode.raw
 
+import crypto.encoding.Base58
 import id.walt.crypto.keys.KeyType
 import id.walt.crypto.keys.jwk.JWKKey
-import id.walt.crypto.utils.decodeBase58
 
 suspend fun main() {
     importSecp256k1RawPublicKey()
@@ -16,7 +16,7 @@ suspend fun importSecp256k1RawPublicKey() {
     println("Importing Raw-encoded $keyType public key from Base58-encoded string: $rawPublicKeyBase58String")
     val publicKey = JWKKey.importRawPublicKey(
         type = keyType,
-        rawPublicKey = rawPublicKeyBase58String.decodeBase58(),
+        rawPublicKey = Base58.decode(rawPublicKeyBase58String),
     )
     println("Decoded $keyType public key as JWK Object : ${publicKey.exportJWKObject()}")
 }
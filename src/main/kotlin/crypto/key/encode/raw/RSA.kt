@@ -1,8 +1,8 @@
 package crypto.key.encode.raw
 
+import crypto.encoding.Base58
 import id.walt.crypto.keys.KeyType
 import id.walt.crypto.keys.jwk.JWKKey
-import id.walt.crypto.utils.encodeToBase58String
 
 suspend fun main() {
     exportRSARawPublicKey()
@@ -15,5 +15,5 @@ suspend fun exportRSARawPublicKey() {
 
     println("Exporting Raw-encoded $keyType public key as Base58-encoded string...")
     val rawPublicKey= privateKey.getPublicKeyRepresentation()
-    println("$keyType Raw-encoded $keyType public key as Base58-encoded string: ${rawPublicKey.encodeToBase58String()}\n")
+    println("$keyType Raw-encoded $keyType public key as Base58-encoded string: ${Base58.encode(rawPublicKey)}\n")
 }
@@ -0,0 +1,164 @@
+package crypto.key.rsa
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.math.BigInteger
+import java.security.KeyFactory
+import java.security.interfaces.RSAPrivateCrtKey
+import java.security.interfaces.RSAPrivateKey
+import java.security.spec.PKCS8EncodedKeySpec
+import java.security.spec.RSAKeyGenParameterSpec
+import java.security.spec.RSAPrivateCrtKeySpec
+import java.util.Base64
+import org.bouncycastle.asn1.pkcs.RSAPrivateKey as Pkcs1RsaPrivateKey
+
+/**
+ * RSA private keys with their Chinese Remainder Theorem parameters.
+ *
+ * Signing with the CRT parameters (two half-size exponentiations) is about 3-4x faster than a single exponentiation
+ * with `d`, but keys imported from a JWK with only `n`, `e` and `d`, or from a PEM with zeroed CRT fields, end up
+ * without them. The primes can be recovered from `n`, `e` and `d`, so every import through this object yields a
+ * CRT key. The bulk importer, the file key store and the key import examples all import through here.
+ */
+object RsaCrt {
+
+    val CRT_MEMBERS = listOf("p", "q", "dp", "dq", "qi")
+
+    private val ONE = BigInteger.ONE
+    private val TWO = BigInteger.TWO
+
+    /**
+     * Factors `n` given a matching exponent pair (NIST SP 800-56B, appendix C.2). `e * d - 1` is a multiple of
+     * `lambda(n)`, so for most bases `g` a square root of 1 other than +-1 shows up when halving the exponent,
+     * and its gcd with `n` is a prime. Small bases are tried in order, which keeps the result deterministic.
+     */
+    fun factor(modulus: BigInteger, publicExponent: BigInteger, privateExponent: BigInteger): Pair<BigInteger, BigInteger> {
+        val k = publicExponent * privateExponent - ONE
+        val twos = k.lowestSetBit
+        val oddPart = k.shiftRight(twos)
+        val minusOne = modulus - ONE
+
+        for (base in 2..1_000) {
+            var y = BigInteger.valueOf(base.toLong()).modPow(oddPart, modulus)
+            if (y == ONE || y == minusOne) continue
+            for (i in 0 until twos) {
+                val x = y.modPow(TWO, modulus)
+                if (x == ONE) {
+                    val p = (y - ONE).gcd(modulus)
+                    val (q, remainder) = modulus.divideAndRemainder(p)
+                    check(remainder.signum() == 0 && p != ONE && q != ONE) { "Factoring the modulus failed" }
+                    return if (p > q) p to q else q to p
+                }
+                if (x == minusOne) break
+                y = x
+            }
+        }
+        throw IllegalArgumentException("Private exponent does not match the modulus and public exponent")
+    }
+
+    fun crtKey(modulus: BigInteger, publicExponent: BigInteger, privateExponent: BigInteger): RSAPrivateCrtKey {
+        val (p, q) = factor(modulus, publicExponent, privateExponent)
+        val spec = RSAPrivateCrtKeySpec(
+            modulus, publicExponent, privateExponent, p, q,
+            privateExponent.mod(p - ONE), privateExponent.mod(q - ONE), q.modInverse(p),
+        )
+        return KeyFactory.getInstance("RSA").generatePrivate(spec) as RSAPrivateCrtKey
+    }
+
+    /**
+     * [key] itself if it has CRT parameters, otherwise a CRT key recovered with the key's own public exponent or,
+     * for keys that don't carry one, [publicExponent].
+     */
+    fun ensureCrt(key: RSAPrivateKey, publicExponent: BigInteger = RSAKeyGenParameterSpec.F4): RSAPrivateCrtKey {
+        if (key is RSAPrivateCrtKey && key.primeP.signum() > 0 && key.crtCoefficient.signum() > 0) return key
+        val exponent = (key as? RSAPrivateCrtKey)?.publicExponent?.takeIf { it.signum() > 0 } ?: publicExponent
+        return crtKey(key.modulus, exponent, key.privateExponent)
+    }
+
+    /**
+     * Private RSA JWK with all CRT members. JWKs that already have them are returned unchanged.
+     */
+    fun completeJwk(jwk: JsonObject): JsonObject {
+        require((jwk["kty"] as? JsonPrimitive)?.content == "RSA") { "Not an RSA JWK" }
+        require("d" in jwk) { "Not a private RSA JWK" }
+        require("oth" !in jwk) { "Multi-prime JWKs are not supported" }
+        if (CRT_MEMBERS.all { it in jwk }) return jwk
+
+        val key = crtKey(jwk.bigInteger("n"), jwk.bigInteger("e"), jwk.bigInteger("d"))
+        return JsonObject(
+            jwk + mapOf(
+                "p" to key.primeP, "q" to key.primeQ, "dp" to key.primeExponentP,
+                "dq" to key.primeExponentQ, "qi" to key.crtCoefficient,
+            ).mapValues { (_, value) -> JsonPrimitive(encode(value)) }
+        )
+    }
+
+    fun privateKey(jwk: JsonObject): RSAPrivateCrtKey {
+        val complete = completeJwk(jwk)
+        val spec = RSAPrivateCrtKeySpec(
+            complete.bigInteger("n"), complete.bigInteger("e"), complete.bigInteger("d"),
+            complete.bigInteger("p"), complete.bigInteger("q"),
+            complete.bigInteger("dp"), complete.bigInteger("dq"), complete.bigInteger("qi"),
+        )
+        return KeyFactory.getInstance("RSA").generatePrivate(spec) as RSAPrivateCrtKey
+    }
+
+    /**
+     * Private key from a PKCS#8 (`PRIVATE KEY`) or PKCS#1 (`RSA PRIVATE KEY`) PEM.
+     */
+    fun privateKey(pem: String): RSAPrivateCrtKey {
+        val der = Base64.getMimeDecoder().decode(pem.lines().filterNot { it.startsWith("-----") }.joinToString(""))
+        val key = if ("BEGIN RSA PRIVATE KEY" in pem) {
+            val pkcs1 = Pkcs1RsaPrivateKey.getInstance(der)
+            val spec = RSAPrivateCrtKeySpec(
+                pkcs1.modulus, pkcs1.publicExponent, pkcs1.privateExponent, pkcs1.prime1, pkcs1.prime2,
+                pkcs1.exponent1, pkcs1.exponent2, pkcs1.coefficient,
+            )
+            KeyFactory.getInstance("RSA").generatePrivate(spec)
+        } else {
+            KeyFactory.getInstance("RSA").generatePrivate(PKCS8EncodedKeySpec(der))
+        }
+        return ensureCrt(key as RSAPrivateKey)
+    }
+
+    /**
+     * [key] itself unless it is a private RSA key without CRT parameters, in which case they are recovered. Import
+     * paths that accept any key type pass every imported key through here.
+     */
+    suspend fun ensureCrt(key: JWKKey): JWKKey {
+        if (key.keyType != KeyType.RSA || !key.hasPrivateKey) return key
+        val jwk = key.exportJWKObject()
+        if ("oth" in jwk || CRT_MEMBERS.all { it in jwk }) return key
+        return JWKKey.importJWK(completeJwk(jwk).toString()).getOrThrow()
+    }
+
+    suspend fun importJwk(jwk: String): Result<JWKKey> = runCatching {
+        JWKKey.importJWK(completeJwk(Json.parseToJsonElement(jwk).jsonObject).toString()).getOrThrow()
+    }
+
+    suspend fun importPem(pem: String): Result<JWKKey> = runCatching {
+        val key = privateKey(pem)
+        val jwk = mapOf(
+            "n" to key.modulus, "e" to key.publicExponent, "d" to key.privateExponent,
+            "p" to key.primeP, "q" to key.primeQ, "dp" to key.primeExponentP,
+            "dq" to key.primeExponentQ, "qi" to key.crtCoefficient,
+        ).mapValues { (_, value) -> JsonPrimitive(encode(value)) }
+        JWKKey.importJWK(JsonObject(mapOf("kty" to JsonPrimitive("RSA")) + jwk).toString()).getOrThrow()
+    }
+
+    internal fun encode(value: BigInteger): String {
+        val bytes = value.toByteArray()
+        // unsigned big-endian, without the sign byte BigInteger adds to values with the top bit set
+        val unsigned = if (bytes.size > 1 && bytes[0].toInt() == 0) bytes.copyOfRange(1, bytes.size) else bytes
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(unsigned)
+    }
+
+    private fun JsonObject.bigInteger(name: String): BigInteger {
+        val value = (this[name] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("JWK is missing member '$name'")
+        return BigInteger(1, Base64.getUrlDecoder().decode(value))
+    }
+}
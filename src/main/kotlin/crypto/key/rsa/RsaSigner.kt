@@ -0,0 +1,57 @@
+package crypto.key.rsa
+
+import crypto.signatures.jws.compactJws
+import id.walt.crypto.keys.Key
+import kotlinx.serialization.json.JsonElement
+import java.security.Signature
+import java.security.interfaces.RSAPrivateKey
+import java.security.spec.AlgorithmParameterSpec
+import java.security.spec.MGF1ParameterSpec
+import java.security.spec.PSSParameterSpec
+
+enum class RsaSignatureScheme(val jwsAlgorithm: String, val jcaAlgorithm: String, val parameters: AlgorithmParameterSpec?) {
+    RS256("RS256", "SHA256withRSA", null),
+    PS256("PS256", "RSASSA-PSS", PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1)),
+}
+
+/**
+ * RSA signer that keeps one initialized [Signature] engine per thread.
+ *
+ * Looking up the provider, setting the PSS parameters and `initSign` (which validates the key and sets up the
+ * blinding values) are done once per thread instead of once per signature; after `sign()` the engine is ready for
+ * the next message with the same key. The private key always carries its CRT parameters ([RsaCrt.ensureCrt]).
+ */
+class RsaSigner(privateKey: RSAPrivateKey, val scheme: RsaSignatureScheme = RsaSignatureScheme.RS256) {
+
+    private val privateKey = RsaCrt.ensureCrt(privateKey)
+
+    private val engines = ThreadLocal.withInitial {
+        Signature.getInstance(scheme.jcaAlgorithm).apply {
+            scheme.parameters?.let { setParameter(it) }
+            initSign(this@RsaSigner.privateKey)
+        }
+    }
+
+    fun sign(message: ByteArray): ByteArray {
+        val engine = engines.get()
+        return try {
+            engine.update(message)
+            engine.sign()
+        } catch (e: Exception) {
+            // don't hand a half-updated engine to the next call
+            engines.remove()
+            throw e
+        }
+    }
+
+    /**
+     * Compact JWS with the algorithm of the [scheme] and the given additional [headers], which may not contain `alg`.
+     */
+    fun signJws(payload: ByteArray, headers: Map<String, JsonElement> = emptyMap()): String =
+        compactJws(scheme.jwsAlgorithm, payload, headers, ::sign)
+
+    companion object {
+        suspend fun fromKey(key: Key, scheme: RsaSignatureScheme = RsaSignatureScheme.RS256): RsaSigner =
+            RsaSigner(RsaCrt.privateKey(key.exportJWKObject()), scheme)
+    }
+}
@@ -0,0 +1,47 @@
+package crypto.key.rsa
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.security.Signature
+import kotlin.time.measureTime
+
+suspend fun main() {
+    accelerateRsaSigning()
+}
+
+suspend fun accelerateRsaSigning() {
+    val payload = "This is an important message".encodeToByteArray()
+    val key = JWKKey.generate(KeyType.RSA)
+    val jwk = key.exportJWKObject()
+
+    // a JWK with only n, e and d, as some key management systems export it
+    val withoutCrt = JsonObject(jwk.filterKeys { it !in RsaCrt.CRT_MEMBERS })
+    val plainImport = JWKKey.importJWK(withoutCrt.toString()).getOrThrow()
+    val crtImport = RsaCrt.importJwk(withoutCrt.toString()).getOrThrow()
+    println("Recovered CRT parameters match: ${RsaCrt.CRT_MEMBERS.all { crtImport.exportJWKObject()[it] == jwk[it] }}")
+
+    val withoutCrtTime = measureTime { repeat(50) { plainImport.signRaw(payload) } }
+    val crtTime = measureTime { repeat(50) { crtImport.signRaw(payload) } }
+    println("50 signatures: imported without CRT $withoutCrtTime, with recovered CRT $crtTime")
+
+    for (scheme in RsaSignatureScheme.entries) {
+        val signer = RsaSigner.fromKey(key, scheme)
+        val jws = signer.signJws(JsonObject(mapOf("sub" to JsonPrimitive("rsa"))).toString().encodeToByteArray())
+        println("${scheme.jwsAlgorithm} JWS verified by JWKKey: ${key.getPublicKey().verifyJws(jws).isSuccess}")
+        val reused = measureTime { repeat(50) { signer.sign(payload) } }
+        println("50 ${scheme.jwsAlgorithm} signatures with a reused engine: $reused")
+    }
+
+    val multiPrime = MultiPrimeRsaKey.generate(bits = 2048, primeCount = 3)
+    val signature = multiPrime.signPkcs1Sha256(payload)
+    val verifier = Signature.getInstance("SHA256withRSA").apply {
+        initVerify(multiPrime.publicKey)
+        update(payload)
+    }
+    println("3-prime RS256 signature valid: ${verifier.verify(signature)}")
+    println("3-prime public JWK: ${multiPrime.publicJwk()}")
+    val multiPrimeTime = measureTime { repeat(50) { multiPrime.signPkcs1Sha256(payload) } }
+    println("50 signatures with 3 primes: $multiPrimeTime")
+}
@@ -0,0 +1,431 @@
+package crypto.key.store
+
+import crypto.key.rsa.RsaCrt
+import id.walt.crypto.keys.Key
+import id.walt.crypto.keys.jwk.JWKKey
+import java.io.Closeable
+import java.lang.invoke.MethodHandles
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.channels.OverlappingFileLockException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.security.SecureRandom
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.atomic.AtomicReferenceArray
+import javax.crypto.AEADBadTagException
+import javax.crypto.Cipher
+import javax.crypto.SecretKeyFactory
+import javax.crypto.spec.GCMParameterSpec
+import javax.crypto.spec.PBEKeySpec
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Converts keys to and from the bytes stored in a [FileKeyStore]. Register an own codec for custom `JavaKey`
+ * implementations, [JwkKeyCodec] covers all [JWKKey]s.
+ */
+interface KeyCodec {
+    val type: String
+    suspend fun encode(key: Key): ByteArray
+    suspend fun decode(encoded: ByteArray): Key
+}
+
+object JwkKeyCodec : KeyCodec {
+    override val type = "jwk"
+    // RSA keys are stored with their CRT parameters, keys stored without them by older versions are completed on load
+    override suspend fun encode(key: Key) = (if (key is JWKKey) RsaCrt.ensureCrt(key) else key).exportJWK().encodeToByteArray()
+    override suspend fun decode(encoded: ByteArray): Key = RsaCrt.ensureCrt(JWKKey.importJWK(encoded.decodeToString()).getOrThrow())
+}
+
+/**
+ * Handle to a stored key. The key material is only decrypted and imported on the first call to [key], later calls
+ * on the same handle reuse it. Hold on to the handle to keep the decoded key.
+ */
+class StoredKey internal constructor(
+    val keyId: String,
+    val thumbprint: String,
+    internal val offset: Long,
+    private val store: FileKeyStore,
+) {
+    @Volatile
+    private var loaded: Key? = null
+
+    suspend fun key(): Key = loaded ?: store.decodeRecord(offset).also { loaded = it }
+}
+
+/**
+ * Persistent local key store.
+ *
+ * Keys are encrypted with AES-256-GCM (key derived from a passphrase with PBKDF2) and appended to `keys.dat`.
+ * `keys.idx` is a memory-mapped open-addressing hash table from key ID and JWK thumbprint to the record offset,
+ * so a lookup is one probe sequence plus one positional read. Writers are serialized, readers never lock: index
+ * slots are published with release/acquire semantics and a grown index is swapped in atomically.
+ * If the index is missing or out of date (e.g. after a crash), it is rebuilt from the data file on [open].
+ *
+ * Records are never rewritten, so handles of looked-up keys are cached by record offset: a key that is looked up
+ * again while its handle is cached is not decrypted and imported again. The cache is a fixed-size, direct-mapped
+ * table of `keyCacheSize` handles (a handle evicts the one in its slot), which bounds both the heap and the amount of
+ * decrypted key material kept in memory. The data file is locked while the store is open.
+ */
+class FileKeyStore private constructor(
+    private val dataFile: FileChannel,
+    private val indexPath: Path,
+    private val secretKey: SecretKeySpec,
+    private val codecs: Map<String, KeyCodec>,
+    keyCacheSize: Int,
+) : Closeable {
+
+    private class Index(val channel: FileChannel, val buffer: MappedByteBuffer, val capacity: Int)
+
+    private val index = AtomicReference<Index>()
+    private val random = SecureRandom()
+    private val handles = AtomicReferenceArray<StoredKey?>(keyCacheSize)
+
+    val size: Long get() = index.get().buffer.getLong(INDEX_COUNT_OFFSET) / 2
+
+    suspend fun put(key: Key, codec: KeyCodec = JwkKeyCodec, keyId: String? = null, thumbprint: String? = null): StoredKey {
+        val kid = keyId ?: key.getKeyId()
+        val thumb = thumbprint ?: key.getThumbprint()
+        val record = encodeRecord(codec.type, kid, thumb, codec.encode(key))
+
+        val offset = synchronized(this) {
+            val offset = dataFile.size()
+            writeFully(dataFile, ByteBuffer.wrap(record), offset)
+            insert(entryHash(KID, kid), offset)
+            insert(entryHash(THUMBPRINT, thumb), offset)
+            index.get().buffer.putLong(INDEX_DATA_LENGTH_OFFSET, dataFile.size())
+            offset
+        }
+        return StoredKey(kid, thumb, offset, this)
+    }
+
+    fun getByKid(keyId: String): StoredKey? = lookup(KID, keyId)
+
+    fun getByThumbprint(thumbprint: String): StoredKey? = lookup(THUMBPRINT, thumbprint)
+
+    private fun lookup(namespace: Long, value: String): StoredKey? {
+        val snapshot = index.get()
+        val hash = entryHash(namespace, value)
+        val mask = snapshot.capacity - 1
+        var slot = (hash ushr 1).toInt() and mask
+        while (true) {
+            val slotOffset = INDEX_HEADER_SIZE + slot * SLOT_SIZE
+            val slotHash = LONG.getAcquire(snapshot.buffer, slotOffset) as Long
+            if (slotHash == EMPTY) return null
+            if (slotHash == hash) {
+                val offset = LONG.getAcquire(snapshot.buffer, slotOffset + 8) as Long
+                cachedHandle(offset)?.let { if ((if (namespace == KID) it.keyId else it.thumbprint) == value) return it }
+                val header = readHeader(offset)
+                if ((if (namespace == KID) header.keyId else header.thumbprint) == value) {
+                    return handle(offset, header.keyId, header.thumbprint)
+                }
+            }
+            slot = (slot + 1) and mask
+        }
+    }
+
+    private fun cachedHandle(offset: Long): StoredKey? {
+        if (handles.length() == 0) return null
+        return handles.get(cacheSlot(offset))?.takeIf { it.offset == offset }
+    }
+
+    private fun handle(offset: Long, keyId: String, thumbprint: String): StoredKey {
+        val handle = StoredKey(keyId, thumbprint, offset, this)
+        if (handles.length() > 0) handles.set(cacheSlot(offset), handle)
+        return handle
+    }
+
+    private fun cacheSlot(offset: Long): Int = Math.floorMod(java.lang.Long.hashCode(offset * GOLDEN_RATIO), handles.length())
+
+    internal suspend fun decodeRecord(offset: Long): Key {
+        val header = readHeader(offset)
+        val codec = codecs[header.codecType] ?: throw IllegalStateException("No key codec registered for type ${header.codecType}")
+        val cipher = Cipher.getInstance(CIPHER)
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, GCMParameterSpec(128, header.iv))
+        cipher.updateAAD(header.keyId.encodeToByteArray())
+        return codec.decode(cipher.doFinal(header.ciphertext))
+    }
+
+    // record: [int length][byte typeLen][type][short kidLen][kid][short thumbLen][thumb][12 byte IV][int ctLen][ciphertext]
+    private fun encodeRecord(codecType: String, keyId: String, thumbprint: String, plaintext: ByteArray): ByteArray {
+        val type = codecType.encodeToByteArray()
+        val kid = keyId.encodeToByteArray()
+        val thumb = thumbprint.encodeToByteArray()
+        val iv = ByteArray(IV_SIZE).also { random.nextBytes(it) }
+        val ciphertext = Cipher.getInstance(CIPHER).run {
+            init(Cipher.ENCRYPT_MODE, secretKey, GCMParameterSpec(128, iv))
+            updateAAD(kid)
+            doFinal(plaintext)
+        }
+
+        val length = 1 + type.size + 2 + kid.size + 2 + thumb.size + IV_SIZE + 4 + ciphertext.size
+        return ByteBuffer.allocate(4 + length)
+            .putInt(length)
+            .put(type.size.toByte()).put(type)
+            .putShort(kid.size.toShort()).put(kid)
+            .putShort(thumb.size.toShort()).put(thumb)
+            .put(iv)
+            .putInt(ciphertext.size).put(ciphertext)
+            .array()
+    }
+
+    private class RecordHeader(val codecType: String, val keyId: String, val thumbprint: String, val iv: ByteArray, val ciphertext: ByteArray)
+
+    private fun readHeader(offset: Long): RecordHeader {
+        val lengthBuffer = ByteBuffer.allocate(4)
+        readFully(dataFile, lengthBuffer, offset)
+        val record = ByteBuffer.allocate(lengthBuffer.getInt(0))
+        readFully(dataFile, record, offset + 4)
+        record.flip()
+
+        fun string(length: Int) = ByteArray(length).also { record.get(it) }.decodeToString()
+        val codecType = string(record.get().toInt())
+        val keyId = string(record.getShort().toInt())
+        val thumbprint = string(record.getShort().toInt())
+        val iv = ByteArray(IV_SIZE).also { record.get(it) }
+        val ciphertext = ByteArray(record.getInt()).also { record.get(it) }
+        return RecordHeader(codecType, keyId, thumbprint, iv, ciphertext)
+    }
+
+    // called with the write lock held
+    private fun insert(hash: Long, offset: Long) {
+        var snapshot = index.get()
+        val count = snapshot.buffer.getLong(INDEX_COUNT_OFFSET)
+        if ((count + 1) * 10 > snapshot.capacity * 6L) {
+            snapshot = grow(snapshot)
+        }
+        if (insertSlot(snapshot, hash, offset)) {
+            snapshot.buffer.putLong(INDEX_COUNT_OFFSET, snapshot.buffer.getLong(INDEX_COUNT_OFFSET) + 1)
+        }
+    }
+
+    /**
+     * Returns true if a new slot was used, false if an existing entry for the same key ID / thumbprint was updated.
+     */
+    private fun insertSlot(snapshot: Index, hash: Long, offset: Long): Boolean {
+        val mask = snapshot.capacity - 1
+        var slot = (hash ushr 1).toInt() and mask
+        while (true) {
+            val slotOffset = INDEX_HEADER_SIZE + slot * SLOT_SIZE
+            val slotHash = snapshot.buffer.getLong(slotOffset)
+            if (slotHash == EMPTY) {
+                snapshot.buffer.putLong(slotOffset + 8, offset)
+                LONG.setRelease(snapshot.buffer, slotOffset, hash)
+                return true
+            }
+            if (slotHash == hash && sameEntry(hash, snapshot.buffer.getLong(slotOffset + 8), offset)) {
+                LONG.setRelease(snapshot.buffer, slotOffset + 8, offset)
+                return false
+            }
+            slot = (slot + 1) and mask
+        }
+    }
+
+    private fun sameEntry(hash: Long, existingOffset: Long, newOffset: Long): Boolean {
+        val existing = readHeader(existingOffset)
+        val new = readHeader(newOffset)
+        return if (hash and 1L == KID) existing.keyId == new.keyId else existing.thumbprint == new.thumbprint
+    }
+
+    private fun grow(old: Index): Index {
+        val grown = createIndex(indexPath.resolveSibling("${indexPath.fileName}.grow"), old.capacity * 2)
+        for (slot in 0 until old.capacity) {
+            val slotOffset = INDEX_HEADER_SIZE + slot * SLOT_SIZE
+            val hash = old.buffer.getLong(slotOffset)
+            if (hash != EMPTY) insertSlot(grown, hash, old.buffer.getLong(slotOffset + 8))
+        }
+        grown.buffer.putLong(INDEX_COUNT_OFFSET, old.buffer.getLong(INDEX_COUNT_OFFSET))
+        grown.buffer.putLong(INDEX_DATA_LENGTH_OFFSET, old.buffer.getLong(INDEX_DATA_LENGTH_OFFSET))
+        grown.buffer.force()
+
+        Files.move(indexPath.resolveSibling("${indexPath.fileName}.grow"), indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        // readers holding the old snapshot keep working on the old mapping until they finish
+        index.set(grown)
+        old.channel.close()
+        return grown
+    }
+
+    private fun rebuildIndex() {
+        index.set(createIndex(indexPath, INITIAL_CAPACITY))
+        var offset = DATA_HEADER_SIZE.toLong()
+        val size = dataFile.size()
+        val lengthBuffer = ByteBuffer.allocate(4)
+        while (offset + 4 <= size) {
+            lengthBuffer.clear()
+            readFully(dataFile, lengthBuffer, offset)
+            val length = lengthBuffer.getInt(0)
+            if (length <= 0 || offset + 4 + length > size) break
+            val header = readHeader(offset)
+            insert(entryHash(KID, header.keyId), offset)
+            insert(entryHash(THUMBPRINT, header.thumbprint), offset)
+            offset += 4 + length
+        }
+        // drop a torn record left behind by an interrupted append
+        dataFile.truncate(offset)
+        index.get().buffer.putLong(INDEX_DATA_LENGTH_OFFSET, offset)
+    }
+
+    override fun close() {
+        synchronized(this) {
+            index.get().buffer.force()
+            index.get().channel.close()
+            dataFile.force(true)
+            dataFile.close()
+            for (slot in 0 until handles.length()) handles.set(slot, null)
+        }
+    }
+
+    companion object {
+        private val LONG = MethodHandles.byteBufferViewVarHandle(LongArray::class.java, ByteOrder.BIG_ENDIAN)
+
+        private const val CIPHER = "AES/GCM/NoPadding"
+        private const val IV_SIZE = 12
+        private const val PBKDF2_ITERATIONS = 210_000
+
+        private const val DATA_MAGIC = 0x574b5344 // "WKSD"
+        private const val INDEX_MAGIC = 0x574b5349 // "WKSI"
+        private const val DATA_HEADER_SIZE = 128
+        private const val INDEX_HEADER_SIZE = 64
+        private const val INDEX_CAPACITY_OFFSET = 8
+        private const val INDEX_COUNT_OFFSET = 16
+        private const val INDEX_DATA_LENGTH_OFFSET = 24
+        private const val SLOT_SIZE = 16
+        private const val INITIAL_CAPACITY = 1024
+        private const val GOLDEN_RATIO = -0x61c8864680b583ebL
+        const val DEFAULT_KEY_CACHE_SIZE = 1024
+
+        private const val EMPTY = 0L
+        private const val KID = 0L
+        private const val THUMBPRINT = 1L
+        private val PASSPHRASE_CHECK = ByteArray(16)
+
+        /**
+         * Opens the store in [directory], creating it if necessary. Up to [keyCacheSize] handles of looked-up keys
+         * (with their decoded keys) are cached, 0 disables the cache. Fails if the store is already open, in this
+         * or another process.
+         */
+        fun open(
+            directory: Path,
+            passphrase: CharArray,
+            codecs: List<KeyCodec> = listOf(JwkKeyCodec),
+            keyCacheSize: Int = DEFAULT_KEY_CACHE_SIZE,
+        ): FileKeyStore {
+            require(keyCacheSize >= 0) { "Key cache size must not be negative" }
+            Files.createDirectories(directory)
+            val dataPath = directory.resolve("keys.dat")
+            val indexPath = directory.resolve("keys.idx")
+            val dataFile = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            // the lock is released when the channel is closed
+            val lock = try {
+                dataFile.tryLock()
+            } catch (e: OverlappingFileLockException) {
+                null
+            }
+            if (lock == null) {
+                dataFile.close()
+                throw IllegalStateException("Key store $directory is already open")
+            }
+
+            val header = ByteBuffer.allocate(DATA_HEADER_SIZE)
+            val secretKey = if (dataFile.size() == 0L) {
+                val salt = ByteArray(16).also { SecureRandom().nextBytes(it) }
+                val secretKey = deriveKey(passphrase, salt, PBKDF2_ITERATIONS)
+                val iv = ByteArray(IV_SIZE).also { SecureRandom().nextBytes(it) }
+                val check = Cipher.getInstance(CIPHER).run {
+                    init(Cipher.ENCRYPT_MODE, secretKey, GCMParameterSpec(128, iv))
+                    doFinal(PASSPHRASE_CHECK)
+                }
+                header.putInt(DATA_MAGIC).putInt(1).putInt(PBKDF2_ITERATIONS).put(salt).put(iv).put(check).rewind()
+                writeFully(dataFile, header, 0)
+                dataFile.force(true)
+                secretKey
+            } else {
+                readFully(dataFile, header, 0)
+                header.flip()
+                require(header.getInt() == DATA_MAGIC) { "$dataPath is not a key store data file" }
+                header.getInt() // version
+                val iterations = header.getInt()
+                val salt = ByteArray(16).also { header.get(it) }
+                val iv = ByteArray(IV_SIZE).also { header.get(it) }
+                val check = ByteArray(PASSPHRASE_CHECK.size + 16).also { header.get(it) }
+                val secretKey = deriveKey(passphrase, salt, iterations)
+                try {
+                    Cipher.getInstance(CIPHER).run {
+                        init(Cipher.DECRYPT_MODE, secretKey, GCMParameterSpec(128, iv))
+                        doFinal(check)
+                    }
+                } catch (e: AEADBadTagException) {
+                    dataFile.close()
+                    throw IllegalArgumentException("Wrong passphrase for key store $directory", e)
+                }
+                secretKey
+            }
+
+            val store = FileKeyStore(dataFile, indexPath, secretKey, codecs.associateBy { it.type }, keyCacheSize)
+            val existing = if (Files.exists(indexPath)) openIndex(indexPath) else null
+            if (existing != null && existing.buffer.getLong(INDEX_DATA_LENGTH_OFFSET) == dataFile.size()) {
+                store.index.set(existing)
+            } else {
+                existing?.channel?.close()
+                synchronized(store) { store.rebuildIndex() }
+            }
+            return store
+        }
+
+        private fun deriveKey(passphrase: CharArray, salt: ByteArray, iterations: Int): SecretKeySpec {
+            val derived = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                .generateSecret(PBEKeySpec(passphrase, salt, iterations, 256)).encoded
+            return SecretKeySpec(derived, "AES")
+        }
+
+        private fun createIndex(path: Path, capacity: Int): Index {
+            Files.deleteIfExists(path)
+            val channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            val buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + capacity.toLong() * SLOT_SIZE)
+            buffer.putLong(INDEX_CAPACITY_OFFSET, capacity.toLong())
+            buffer.putInt(0, INDEX_MAGIC)
+            return Index(channel, buffer, capacity)
+        }
+
+        private fun openIndex(path: Path): Index? {
+            val channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+            val buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size())
+            if (channel.size() < INDEX_HEADER_SIZE || buffer.getInt(0) != INDEX_MAGIC) {
+                channel.close()
+                return null
+            }
+            return Index(channel, buffer, buffer.getLong(INDEX_CAPACITY_OFFSET).toInt())
+        }
+
+        // 64-bit FNV-1a with a murmur3 finalizer; the lowest bit encodes the namespace, 0 marks empty slots
+        private fun entryHash(namespace: Long, value: String): Long {
+            var h = -0x340d631b7bdddcdbL
+            for (c in value) {
+                h = (h xor c.code.toLong()) * 0x100000001b3L
+            }
+            h = (h xor (h ushr 33)) * -0xae502812aa7333L
+            h = (h xor (h ushr 33)) * -0x3b314601e57a13adL
+            h = h xor (h ushr 33)
+            val entry = (h and 1L.inv()) or namespace
+            return if (entry == EMPTY) 2L else entry
+        }
+
+        private fun writeFully(channel: FileChannel, buffer: ByteBuffer, position: Long) {
+            var written = 0L
+            while (buffer.hasRemaining()) written += channel.write(buffer, position + written)
+        }
+
+        private fun readFully(channel: FileChannel, buffer: ByteBuffer, position: Long) {
+            var read = 0L
+            while (buffer.hasRemaining()) {
+                val n = channel.read(buffer, position + read)
+                if (n < 0) throw IllegalStateException("Unexpected end of key store data at ${position + read}")
+                read += n
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package crypto.key.store
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import java.nio.file.Files
+
+suspend fun main() {
+    storeAndLoadKeys()
+}
+
+suspend fun storeAndLoadKeys() {
+    val directory = Files.createTempDirectory("waltid-keystore")
+    val passphrase = "correct horse battery staple".toCharArray()
+
+    val ed25519Key = JWKKey.generate(KeyType.Ed25519)
+    val rsaKey = JWKKey.generate(KeyType.RSA)
+
+    FileKeyStore.open(directory, passphrase).use { store ->
+        store.put(ed25519Key)
+        store.put(rsaKey)
+        println("Stored ${store.size} keys in $directory")
+    }
+
+    // keys survive a restart, the index is mapped again and nothing is decrypted until a key is used
+    FileKeyStore.open(directory, passphrase).use { store ->
+        val byKid = store.getByKid(ed25519Key.getKeyId()) ?: error("Ed25519 key not found")
+        println("Found by kid: ${byKid.keyId} (thumbprint ${byKid.thumbprint})")
+
+        val signature = byKid.key().signJws("Hello from the key store".encodeToByteArray())
+        println("Signature: $signature")
+        println("Verification: ${ed25519Key.getPublicKey().verifyJws(signature)}")
+
+        val byThumbprint = store.getByThumbprint(rsaKey.getThumbprint()) ?: error("RSA key not found")
+        println("Found by thumbprint: ${byThumbprint.keyId}, type ${byThumbprint.key().keyType}")
+    }
+
+    runCatching { FileKeyStore.open(directory, "wrong".toCharArray()) }
+        .onFailure { println("Opening with a wrong passphrase: ${it.message}") }
+}
@@ -0,0 +1,166 @@
+package crypto.key.thumbprint
+
+import id.walt.crypto.keys.Key
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.lang.ref.ReferenceQueue
+import java.lang.ref.WeakReference
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * RFC 7638 JWK thumbprints (SHA-256, base64url).
+ *
+ * The canonical JSON of the required members is written straight into a per-thread byte buffer (escapes and UTF-8
+ * encoded by hand) and hashed with a per-thread [MessageDigest]. Per call only the base64url result is allocated;
+ * the [JsonObject] has to exist already, exporting it from a key is the expensive part (see [ThumbprintCache]).
+ */
+object JwkThumbprint {
+
+    // required members per key type, already in lexicographic order
+    private val REQUIRED_MEMBERS = mapOf(
+        "EC" to listOf("crv", "kty", "x", "y"),
+        "OKP" to listOf("crv", "kty", "x"),
+        "RSA" to listOf("e", "kty", "n"),
+        "oct" to listOf("k", "kty"),
+    )
+
+    private val HEX = "0123456789abcdef"
+
+    private class Scratch {
+        var buffer = ByteArray(1024)
+        var size = 0
+        val digest: MessageDigest = MessageDigest.getInstance("SHA-256")
+        val hash = ByteArray(32)
+
+        fun write(byte: Int) {
+            if (size == buffer.size) buffer = buffer.copyOf(buffer.size * 2)
+            buffer[size++] = byte.toByte()
+        }
+
+        fun writeString(value: String) {
+            write('"'.code)
+            var i = 0
+            while (i < value.length) {
+                val char = value[i++]
+                val code = char.code
+                when {
+                    char == '"' || char == '\\' -> {
+                        write('\\'.code)
+                        write(code)
+                    }
+                    char < ' ' -> {
+                        write('\\'.code)
+                        write('u'.code)
+                        write('0'.code)
+                        write('0'.code)
+                        write(HEX[code shr 4].code)
+                        write(HEX[code and 0xf].code)
+                    }
+                    code < 0x80 -> write(code)
+                    code < 0x800 -> {
+                        write(0xc0 or (code shr 6))
+                        write(0x80 or (code and 0x3f))
+                    }
+                    char.isHighSurrogate() && i < value.length && value[i].isLowSurrogate() -> {
+                        val codePoint = Character.toCodePoint(char, value[i++])
+                        write(0xf0 or (codePoint shr 18))
+                        write(0x80 or ((codePoint shr 12) and 0x3f))
+                        write(0x80 or ((codePoint shr 6) and 0x3f))
+                        write(0x80 or (codePoint and 0x3f))
+                    }
+                    // unpaired surrogate, replaced like String.encodeToByteArray does
+                    char.isSurrogate() -> write('?'.code)
+                    else -> {
+                        write(0xe0 or (code shr 12))
+                        write(0x80 or ((code shr 6) and 0x3f))
+                        write(0x80 or (code and 0x3f))
+                    }
+                }
+            }
+            write('"'.code)
+        }
+    }
+
+    private val scratch = ThreadLocal.withInitial { Scratch() }
+
+    fun compute(jwk: JsonObject): String {
+        val kty = (jwk["kty"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("JWK has no kty")
+        val members = REQUIRED_MEMBERS[kty] ?: throw IllegalArgumentException("Unsupported key type for thumbprint: $kty")
+
+        val out = scratch.get()
+        out.size = 0
+        out.write('{'.code)
+        members.forEachIndexed { i, name ->
+            val value = (jwk[name] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("JWK is missing required member '$name'")
+            if (i > 0) out.write(','.code)
+            out.writeString(name)
+            out.write(':'.code)
+            out.writeString(value)
+        }
+        out.write('}'.code)
+
+        out.digest.update(out.buffer, 0, out.size)
+        out.digest.digest(out.hash, 0, out.hash.size)
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.hash)
+    }
+}
+
+/**
+ * Thumbprints and key IDs computed once per key instance.
+ *
+ * Keys are matched by identity and weakly referenced, an entry is dropped some time after its key was collected.
+ * Lookups go straight to a [ConcurrentHashMap] without a global lock; a hit allocates at most a short-lived lookup
+ * wrapper. A miss exports the complete public JWK of the key (a full [JsonObject] tree, for RSA including the
+ * base64url modulus) and hashes it, which is the cost the cache is there to avoid.
+ */
+object ThumbprintCache {
+
+    class KeyIds(val thumbprint: String, val keyId: String)
+
+    // the hash code of a key is its identity hash code, equality is identity of the referents
+    private class WeakKey(key: Key, queue: ReferenceQueue<Key>) : WeakReference<Key>(key, queue) {
+        private val hash = System.identityHashCode(key)
+
+        override fun hashCode() = hash
+
+        override fun equals(other: Any?) =
+            other === this || other is WeakKey && get().let { it != null && it === other.get() }
+    }
+
+    // ConcurrentHashMap.get calls lookup.equals(storedKey), so a lookup needs no reference object or queue
+    private class Lookup(private val key: Key) {
+        override fun hashCode() = System.identityHashCode(key)
+
+        override fun equals(other: Any?) = other is WeakKey && other.get() === key
+    }
+
+    private val ids = ConcurrentHashMap<Any, KeyIds>()
+    private val collected = ReferenceQueue<Key>()
+
+    suspend fun thumbprint(key: Key): String = (cached(key) ?: ids(key, key.exportJWKObject())).thumbprint
+
+    /**
+     * The `kid` of the JWK if it has one, otherwise the thumbprint (as `JWKKey.getKeyId` does).
+     */
+    suspend fun keyId(key: Key): String = (cached(key) ?: ids(key, key.exportJWKObject())).keyId
+
+    /** The remembered ids of [key], null if they were not computed yet. */
+    fun cached(key: Key): KeyIds? = ids[Lookup(key)]
+
+    /**
+     * Derives thumbprint and key ID of [key] from its already exported public [jwk] and remembers them, for callers
+     * that need the JWK anyway and would otherwise export it twice.
+     */
+    fun ids(key: Key, jwk: JsonObject): KeyIds {
+        expungeCollected()
+        val thumbprint = JwkThumbprint.compute(jwk)
+        val keyIds = KeyIds(thumbprint, (jwk["kid"] as? JsonPrimitive)?.content ?: thumbprint)
+        return ids.putIfAbsent(WeakKey(key, collected), keyIds) ?: keyIds
+    }
+
+    private fun expungeCollected() {
+        while (true) ids.remove(collected.poll() ?: return)
+    }
+}
@@ -0,0 +1,25 @@
+package crypto.key.thumbprint
+
+import crypto.key.rsa.generateRsaKey
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlin.time.measureTime
+
+suspend fun main() {
+    computeThumbprints()
+}
+
+suspend fun computeThumbprints() {
+    for (keyType in listOf(KeyType.Ed25519, KeyType.secp256r1, KeyType.RSA)) {
+        val key = JWKKey.generate(keyType)
+        val thumbprint = JwkThumbprint.compute(key.exportJWKObject())
+        println("$keyType thumbprint: $thumbprint (matches JWKKey.getThumbprint: ${thumbprint == key.getThumbprint()})")
+    }
+
+    val key = generateRsaKey(4096)
+    val first = measureTime { ThumbprintCache.thumbprint(key) }
+    val cached = measureTime { repeat(1_000) { ThumbprintCache.thumbprint(key) } }
+    println("RSA-4096 thumbprint ${ThumbprintCache.thumbprint(key)}: first call $first, 1000 cached calls $cached")
+    println("RSA-4096 key ID: ${ThumbprintCache.keyId(key)}")
+}
+
@@ -0,0 +1,21 @@
+package crypto.signatures.jws
+
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.util.Base64
+
+/**
+ * Assembles a compact JWS for signers outside of walt.id's `Key` (e.g. `FixedBaseEcdsaSigner`, `RsaSigner`):
+ * header `{"alg": algorithm, ...headers}`, base64url-encoded header and payload, and the signature that [sign]
+ * produces over the signing input.
+ *
+ * `alg` always names the algorithm the signer actually used, [headers] may not set it.
+ */
+fun compactJws(algorithm: String, payload: ByteArray, headers: Map<String, JsonElement>, sign: (ByteArray) -> ByteArray): String {
+    require("alg" !in headers) { "The alg header is set by the signer, it cannot be overridden" }
+    val encoder = Base64.getUrlEncoder().withoutPadding()
+    val header = JsonObject(mapOf("alg" to JsonPrimitive(algorithm)) + headers)
+    val signingInput = encoder.encodeToString(header.toString().encodeToByteArray()) + "." + encoder.encodeToString(payload)
+    return signingInput + "." + encoder.encodeToString(sign(signingInput.toByteArray(Charsets.US_ASCII)))
+}
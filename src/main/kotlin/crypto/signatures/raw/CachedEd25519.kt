@@ -0,0 +1,30 @@
+package crypto.signatures.raw
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlin.time.measureTime
+
+suspend fun main() {
+    verifyEd25519WithCache()
+}
+
+suspend fun verifyEd25519WithCache() {
+    val payload = "This is an important message".encodeToByteArray()
+    val key = JWKKey.generate(KeyType.Ed25519)
+    val publicKey = key.getPublicKey()
+    val rawPublicKey = publicKey.getPublicKeyRepresentation()
+
+    val signature = key.signRaw(payload) as ByteArray
+    val jws = key.signJws(JsonObject(mapOf("sub" to JsonPrimitive("cached"))).toString().encodeToByteArray())
+
+    val cache = Ed25519VerificationCache(maxEntries = 128)
+    println("Raw signature valid: ${cache.verify(rawPublicKey, signature, payload)}")
+    println("JWS payload: ${cache.verifyJws(rawPublicKey, jws).getOrThrow()}")
+    println("Tampered payload valid: ${cache.verify(rawPublicKey, signature, "This is another message".encodeToByteArray())}")
+
+    val uncached = measureTime { repeat(1_000) { publicKey.verifyRaw(signature, payload) } }
+    val cached = measureTime { repeat(1_000) { cache.verify(rawPublicKey, signature, payload) } }
+    println("1000 verifications: JWKKey.verifyRaw $uncached, cached public key $cached (hit rate ${"%.3f".format(cache.hitRate)})")
+}
@@ -0,0 +1,72 @@
+package crypto.signatures.raw
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters
+import org.bouncycastle.math.ec.rfc8032.Ed25519
+import java.nio.ByteBuffer
+import java.util.Base64
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Ed25519 verification with decoded public keys kept in a bounded LRU cache.
+ *
+ * [Ed25519PublicKeyParameters] decompresses and validates the curve point once when it is created, every later
+ * verification starts from that point. Verifiers that see the same few issuer keys over and over therefore skip
+ * the point decoding entirely. The cache holds at most [maxEntries] keys, keyed by the raw 32-byte public key.
+ */
+class Ed25519VerificationCache(private val maxEntries: Int = 1024) {
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+
+    private val keys = object : LinkedHashMap<ByteBuffer, Ed25519PublicKeyParameters>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<ByteBuffer, Ed25519PublicKeyParameters>) =
+            size > maxEntries
+    }
+
+    val hitRate: Double
+        get() = hits.get().toDouble() / maxOf(1L, hits.get() + misses.get())
+
+    fun verify(publicKey: ByteArray, signature: ByteArray, message: ByteArray): Boolean =
+        verify(publicKey, signature, message, 0, message.size)
+
+    fun verify(publicKey: ByteArray, signature: ByteArray, message: ByteArray, offset: Int, length: Int): Boolean {
+        if (signature.size != Ed25519.SIGNATURE_SIZE) return false
+        return parameters(publicKey).verify(Ed25519.Algorithm.Ed25519, null, message, offset, length, signature, 0)
+    }
+
+    /**
+     * Verifies a compact EdDSA JWS and returns its payload.
+     */
+    fun verifyJws(publicKey: ByteArray, jws: String): Result<JsonElement> = runCatching {
+        val headerEnd = jws.indexOf('.')
+        val payloadEnd = jws.indexOf('.', headerEnd + 1)
+        require(headerEnd > 0 && payloadEnd > headerEnd) { "Not a compact JWS" }
+
+        val decoder = Base64.getUrlDecoder()
+        val header = Json.parseToJsonElement(decoder.decode(jws.substring(0, headerEnd)).decodeToString()).jsonObject
+        require((header["alg"] as? JsonPrimitive)?.content == "EdDSA") { "Unsupported JWS algorithm ${header["alg"]}" }
+
+        val signingInput = jws.substring(0, payloadEnd).toByteArray(Charsets.US_ASCII)
+        val signature = decoder.decode(jws.substring(payloadEnd + 1))
+        require(verify(publicKey, signature, signingInput)) { "Invalid signature" }
+        Json.parseToJsonElement(decoder.decode(jws.substring(headerEnd + 1, payloadEnd)).decodeToString())
+    }
+
+    private fun parameters(publicKey: ByteArray): Ed25519PublicKeyParameters {
+        require(publicKey.size == Ed25519PublicKeyParameters.KEY_SIZE) { "Ed25519 public keys are 32 bytes, got ${publicKey.size}" }
+        val cacheKey = ByteBuffer.wrap(publicKey)
+        synchronized(keys) { keys[cacheKey] }?.let {
+            hits.incrementAndGet()
+            return it
+        }
+        misses.incrementAndGet()
+        // decode outside the lock, a concurrent miss on the same key only costs a second decoding
+        val parameters = Ed25519PublicKeyParameters(publicKey, 0)
+        synchronized(keys) { keys[ByteBuffer.wrap(publicKey.copyOf())] = parameters }
+        return parameters
+    }
+}
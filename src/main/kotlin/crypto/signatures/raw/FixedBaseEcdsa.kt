@@ -0,0 +1,31 @@
+package crypto.signatures.raw
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlin.time.measureTime
+
+suspend fun main() {
+    signWithFixedBaseEcdsa()
+}
+
+suspend fun signWithFixedBaseEcdsa() {
+    FixedBaseEcdsaSigner.selfTest()
+    println("Known-answer tests passed")
+
+    val payload = "This is an important message".encodeToByteArray()
+    for (keyType in listOf(KeyType.secp256r1, KeyType.secp256k1)) {
+        val key = JWKKey.generate(keyType)
+        val signer = FixedBaseEcdsaSigner.fromKey(key)
+
+        val jws = signer.signJws(JsonObject(mapOf("sub" to JsonPrimitive("fixed-base"))).toString().encodeToByteArray())
+        println("$keyType JWS: $jws")
+        println("$keyType JWS verified by JWKKey: ${key.getPublicKey().verifyJws(jws).isSuccess}")
+        println("$keyType raw signature valid: ${signer.verify(payload, signer.sign(payload))}")
+
+        val waltid = measureTime { repeat(1_000) { key.signRaw(payload) } }
+        val fixedBase = measureTime { repeat(1_000) { signer.sign(payload) } }
+        println("$keyType 1000 signatures: JWKKey.signRaw $waltid, fixed-base $fixedBase")
+    }
+}
@@ -0,0 +1,153 @@
+package crypto.signatures.raw
+
+import crypto.signatures.jws.compactJws
+import id.walt.crypto.keys.Key
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonPrimitive
+import org.bouncycastle.crypto.digests.SHA256Digest
+import org.bouncycastle.crypto.ec.CustomNamedCurves
+import org.bouncycastle.crypto.params.ECDomainParameters
+import org.bouncycastle.crypto.params.ECPrivateKeyParameters
+import org.bouncycastle.crypto.params.ECPublicKeyParameters
+import org.bouncycastle.crypto.signers.ECDSASigner
+import org.bouncycastle.crypto.signers.HMacDSAKCalculator
+import org.bouncycastle.math.ec.FixedPointCombMultiplier
+import org.bouncycastle.math.ec.FixedPointUtil
+import java.math.BigInteger
+import java.security.MessageDigest
+import java.util.Base64
+
+enum class EcdsaCurve(val curveName: String, val jwkCurve: String, val jwsAlgorithm: String) {
+    SECP256R1("secp256r1", "P-256", "ES256"),
+    SECP256K1("secp256k1", "secp256k1", "ES256K");
+
+    /**
+     * Domain parameters on the specialized field arithmetic of the curve, with the fixed-base comb table for the
+     * generator built on first use. The table is attached to this generator instance and shared by all signers.
+     */
+    val domain: ECDomainParameters by lazy {
+        val parameters = CustomNamedCurves.getByName(curveName)
+        ECDomainParameters(parameters.curve, parameters.g, parameters.n, parameters.h).also {
+            FixedPointUtil.precompute(it.g)
+        }
+    }
+
+    companion object {
+        fun fromJwkCurve(crv: String): EcdsaCurve =
+            entries.firstOrNull { it.jwkCurve == crv } ?: throw IllegalArgumentException("Unsupported curve for fixed-base signing: $crv")
+    }
+}
+
+/**
+ * Opt-in ECDSA signer for long-lived secp256r1 / secp256k1 keys.
+ *
+ * `k * G` is computed with a fixed-base comb over a table of generator multiples that is built once per process
+ * ([EcdsaCurve.domain]); the table lookups are constant time, as are the field operations of the specialized curve
+ * implementations. Nonces are deterministic (RFC 6979, HMAC-SHA-256), so no randomness is consumed per signature.
+ * Signatures are SHA-256 over the message in IEEE P1363 format (`r || s`), for secp256k1 normalized to low S.
+ */
+class FixedBaseEcdsaSigner(
+    val curve: EcdsaCurve,
+    privateScalar: BigInteger,
+    private val lowS: Boolean = curve == EcdsaCurve.SECP256K1,
+) {
+
+    private val privateKey = ECPrivateKeyParameters(privateScalar, curve.domain)
+
+    val publicKey = ECPublicKeyParameters(FixedPointCombMultiplier().multiply(curve.domain.g, privateScalar).normalize(), curve.domain)
+
+    private val fieldSize = (curve.domain.n.bitLength() + 7) / 8
+
+    fun sign(message: ByteArray): ByteArray {
+        val (r, s) = signDigest(MessageDigest.getInstance("SHA-256").digest(message))
+        return toFixedLength(r) + toFixedLength(s)
+    }
+
+    fun signDigest(digest: ByteArray): Pair<BigInteger, BigInteger> {
+        // ECDSASigner and the nonce calculator keep per-signature state, they are cheap to create
+        val signer = ECDSASigner(HMacDSAKCalculator(SHA256Digest()))
+        signer.init(true, privateKey)
+        val (r, s) = signer.generateSignature(digest)
+        val halfOrder = curve.domain.n.shiftRight(1)
+        return r to if (lowS && s > halfOrder) curve.domain.n - s else s
+    }
+
+    fun verify(message: ByteArray, signature: ByteArray): Boolean {
+        if (signature.size != 2 * fieldSize) return false
+        val r = BigInteger(1, signature.copyOfRange(0, fieldSize))
+        val s = BigInteger(1, signature.copyOfRange(fieldSize, signature.size))
+        val verifier = ECDSASigner()
+        verifier.init(false, publicKey)
+        return verifier.verifySignature(MessageDigest.getInstance("SHA-256").digest(message), r, s)
+    }
+
+    /**
+     * Compact JWS with the algorithm of the curve (ES256 / ES256K) and the given additional [headers], which may not
+     * contain `alg`.
+     */
+    fun signJws(payload: ByteArray, headers: Map<String, JsonElement> = emptyMap()): String =
+        compactJws(curve.jwsAlgorithm, payload, headers, ::sign)
+
+    private fun toFixedLength(value: BigInteger): ByteArray {
+        val bytes = value.toByteArray()
+        return when {
+            bytes.size == fieldSize -> bytes
+            bytes.size > fieldSize -> bytes.copyOfRange(bytes.size - fieldSize, bytes.size)
+            else -> ByteArray(fieldSize - bytes.size) + bytes
+        }
+    }
+
+    companion object {
+
+        suspend fun fromKey(key: Key): FixedBaseEcdsaSigner {
+            val jwk = key.exportJWKObject()
+            val d = (jwk["d"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("Key has no private part")
+            val crv = (jwk["crv"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("Key is not an EC key")
+            return FixedBaseEcdsaSigner(EcdsaCurve.fromJwkCurve(crv), BigInteger(1, Base64.getUrlDecoder().decode(d)))
+        }
+
+        private class KnownAnswer(val curve: EcdsaCurve, val privateKey: String, val message: String, val r: String, val s: String)
+
+        private val KNOWN_ANSWERS = listOf(
+            // RFC 6979, appendix A.2.5 (P-256, SHA-256)
+            KnownAnswer(
+                EcdsaCurve.SECP256R1, "C9AFA9D845BA75166B5C215767B1D6934E50C3DB36E89B127B8A622B120F6721", "sample",
+                "EFD48B2AACB6A8FD1140DD9CD45E81D69D2C877B56AAF991C34D0EA84EAF3716",
+                "F7CB1C942D657C41D436C7A1B6E29F65F3E900DBB9AFF4064DC4AB2F843ACDA8",
+            ),
+            KnownAnswer(
+                EcdsaCurve.SECP256R1, "C9AFA9D845BA75166B5C215767B1D6934E50C3DB36E89B127B8A622B120F6721", "test",
+                "F1ABB023518351CD71D881567B1EA663ED3EFCF6C5132B354F28D3B0B7D38367",
+                "019F4113742A2B14BD25926B49C649155F267E60D3814B4C0CC84250E46F0083",
+            ),
+            // widely used secp256k1 RFC 6979 vectors (SHA-256, low S)
+            KnownAnswer(
+                EcdsaCurve.SECP256K1, "1", "Satoshi Nakamoto",
+                "934B1EA10A4B3C1757E2B0C017D0B6143CE3C9A7E6A4A49860D7A6AB210EE3D8",
+                "2442CE9D2B916064108014783E923EC36B49743E2FFA1C4496F01A512AAFD9E5",
+            ),
+            KnownAnswer(
+                EcdsaCurve.SECP256K1, "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFEBAAEDCE6AF48A03BBFD25E8CD0364140", "Satoshi Nakamoto",
+                "FD567D121DB66E382991534ADA77A6BD3106F0A1098C231E47993447CD6AF2D0",
+                "6B39CD0EB1BC8603E159EF5C20A5C8AD685A45B06CE9BEBED3F153D10D93BED5",
+            ),
+        )
+
+        /**
+         * Signs the known-answer vectors and throws if any signature differs.
+         */
+        fun selfTest() {
+            for (vector in KNOWN_ANSWERS) {
+                val signer = FixedBaseEcdsaSigner(vector.curve, BigInteger(vector.privateKey, 16))
+                val signature = signer.sign(vector.message.encodeToByteArray())
+                val expected = signer.toFixedLength(BigInteger(vector.r, 16)) + signer.toFixedLength(BigInteger(vector.s, 16))
+                check(signature.contentEquals(expected)) {
+                    "Known-answer test failed for ${vector.curve} / \"${vector.message}\""
+                }
+                check(signer.verify(vector.message.encodeToByteArray(), signature)) {
+                    "Known-answer signature does not verify for ${vector.curve} / \"${vector.message}\""
+                }
+            }
+        }
+    }
+}
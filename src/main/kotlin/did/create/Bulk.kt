@@ -0,0 +1,43 @@
+package did.create
+
+import id.walt.crypto.keys.KeyType
+import id.walt.did.dids.DidService
+import id.walt.did.dids.registrar.dids.DidKeyCreateOptions
+import java.nio.file.Files
+import kotlin.time.Duration.Companion.milliseconds
+
+suspend fun main() {
+    provisionDidsInBulk()
+}
+
+suspend fun provisionDidsInBulk() {
+    DidService.minimalInit()
+
+    val output = Files.createTempFile("provisioned-dids", ".jsonl")
+    val provisioner = BulkDidProvisioner(progressInterval = 500.milliseconds)
+
+    println("Provisioning 1000 did:key identities into $output")
+    val result = JsonLinesDidSink(output).use { sink ->
+        provisioner.provision(
+            count = 1_000,
+            sink = sink,
+            method = "key",
+            keyType = KeyType.Ed25519,
+            onProgress = { println("Progress: $it") },
+            onFailure = { index, error -> println("Identity $index failed: ${error.message}") },
+        )
+    }
+    println("Done: $result")
+
+    println("Provisioning 100 did:key identities with jwk_jcs-pub encoding")
+    val jcsOutput = Files.createTempFile("provisioned-dids-jcs", ".jsonl")
+    JsonLinesDidSink(jcsOutput).use { sink ->
+        provisioner.provision(
+            count = 100,
+            sink = sink,
+            keyType = KeyType.secp256r1,
+            options = DidKeyCreateOptions(keyType = KeyType.secp256r1, useJwkJcsPub = true),
+        )
+    }
+    println("First identity: ${Files.newBufferedReader(jcsOutput).use { it.readLine() }}")
+}
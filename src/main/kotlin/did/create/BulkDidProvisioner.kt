@@ -0,0 +1,150 @@
+package did.create
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.did.dids.DidService
+import id.walt.did.dids.registrar.dids.DidCreateOptions
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.buildJsonObject
+import kotlinx.serialization.json.put
+import java.io.BufferedWriter
+import java.io.Closeable
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.DurationUnit
+import kotlin.time.TimeSource
+
+class ProvisionedDid(
+    val index: Int,
+    val did: String,
+    val didDocument: JsonObject,
+    /** Exported private JWK, sinks are responsible for storing it securely. */
+    val jwk: String,
+)
+
+/**
+ * Receives provisioned identities one at a time, always from the same coroutine.
+ */
+fun interface ProvisionedDidSink {
+    suspend fun write(identity: ProvisionedDid)
+}
+
+/**
+ * Writes one JSON object per line: `{"index":…,"did":…,"didDocument":{…},"jwk":{…}}`.
+ */
+class JsonLinesDidSink(file: Path) : ProvisionedDidSink, Closeable {
+
+    private val writer: BufferedWriter = Files.newBufferedWriter(file)
+
+    override suspend fun write(identity: ProvisionedDid) = withContext(Dispatchers.IO) {
+        val line = buildJsonObject {
+            put("index", identity.index)
+            put("did", identity.did)
+            put("didDocument", identity.didDocument)
+            put("jwk", Json.parseToJsonElement(identity.jwk))
+        }
+        writer.write(line.toString())
+        writer.newLine()
+    }
+
+    override fun close() {
+        writer.close()
+    }
+}
+
+class ProvisioningProgress(val completed: Int, val failed: Int, val total: Int, val elapsed: Duration) {
+    val perSecond: Double get() = if (elapsed == Duration.ZERO) 0.0 else completed / elapsed.toDouble(DurationUnit.SECONDS)
+
+    override fun toString() = "$completed/$total provisioned, $failed failed, ${"%.1f".format(perSecond)}/s after $elapsed"
+}
+
+/**
+ * Generates keys and registers DIDs for many identities at once.
+ *
+ * [parallelism] workers (one per core by default) generate and register identities on [Dispatchers.Default] and hand
+ * them to a single writer through a channel of [bufferSize] entries. When the sink falls behind, the workers suspend
+ * instead of piling up results, so memory use stays bounded no matter how many identities are provisioned.
+ */
+class BulkDidProvisioner(
+    private val parallelism: Int = Runtime.getRuntime().availableProcessors(),
+    private val bufferSize: Int = 256,
+    private val progressInterval: Duration = 1.seconds,
+) {
+
+    /**
+     * Provisions [count] identities with fresh [keyType] keys, registered as `did:`[method] (with [options] if given).
+     * Failed identities are counted and reported to [onFailure], they do not stop the run.
+     */
+    suspend fun provision(
+        count: Int,
+        sink: ProvisionedDidSink,
+        method: String = "key",
+        keyType: KeyType = KeyType.Ed25519,
+        options: DidCreateOptions? = null,
+        onProgress: (ProvisioningProgress) -> Unit = {},
+        onFailure: (index: Int, error: Throwable) -> Unit = { _, _ -> },
+    ): ProvisioningProgress = coroutineScope {
+        val started = TimeSource.Monotonic.markNow()
+        val nextIndex = AtomicInteger()
+        val completed = AtomicInteger()
+        val failed = AtomicInteger()
+        fun progress() = ProvisioningProgress(completed.get(), failed.get(), count, started.elapsedNow())
+
+        val results = Channel<ProvisionedDid>(bufferSize)
+
+        val writer = launch {
+            for (identity in results) {
+                sink.write(identity)
+                completed.incrementAndGet()
+            }
+        }
+        val reporter = launch {
+            while (isActive) {
+                delay(progressInterval)
+                onProgress(progress())
+            }
+        }
+
+        val workers = List(parallelism) {
+            launch(Dispatchers.Default) {
+                while (true) {
+                    val index = nextIndex.getAndIncrement()
+                    if (index >= count) break
+                    try {
+                        val key = JWKKey.generate(keyType)
+                        val didResult = if (options == null) {
+                            DidService.registerByKey(method, key)
+                        } else {
+                            DidService.registerByKey(method, key, options)
+                        }
+                        results.send(ProvisionedDid(index, didResult.did, didResult.didDocument.toJsonObject(), key.exportJWK()))
+                    } catch (e: CancellationException) {
+                        throw e
+                    } catch (e: Exception) {
+                        failed.incrementAndGet()
+                        onFailure(index, e)
+                    }
+                }
+            }
+        }
+
+        workers.forEach { it.join() }
+        results.close()
+        writer.join()
+        reporter.cancel()
+
+        progress().also(onProgress)
+    }
+}
@@ -0,0 +1,74 @@
+package did.create.cheqd
+
+import id.walt.did.dids.registrar.dids.DidCheqdCreateOptions
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicReferenceArray
+import kotlin.random.Random
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+
+/**
+ * Submits many cheqd registrations with at most [concurrency] transactions in flight.
+ *
+ * Ledger writes are dominated by the time until a transaction is included in a block, so throughput grows with
+ * the number of transactions in flight rather than with CPU cores. Transient failures ([IOException], e.g.
+ * [LedgerUnavailableException]) are retried up to [maxAttempts] times with exponential backoff and full jitter,
+ * validation errors fail the registration immediately.
+ */
+class CheqdBatchRegistrar(
+    private val registrar: LocalCheqdRegistrar,
+    private val concurrency: Int = 16,
+    private val maxAttempts: Int = 4,
+    private val baseBackoff: Duration = 100.milliseconds,
+) {
+
+    class BatchResult(val results: List<Result<CheqdRegistration>>, val attempts: Int) {
+        val succeeded: Int get() = results.count { it.isSuccess }
+        val failed: Int get() = results.size - succeeded
+    }
+
+    /**
+     * Registers one DID per entry of [options]. Results are in the order of [options].
+     */
+    suspend fun registerAll(options: List<DidCheqdCreateOptions>): BatchResult = coroutineScope {
+        val results = AtomicReferenceArray<Result<CheqdRegistration>>(options.size)
+        val nextIndex = AtomicInteger()
+        val attempts = AtomicInteger()
+
+        List(minOf(concurrency, options.size)) {
+            launch {
+                while (true) {
+                    val index = nextIndex.getAndIncrement()
+                    if (index >= options.size) break
+                    results.set(index, registerWithRetries(options[index], attempts))
+                }
+            }
+        }.forEach { it.join() }
+
+        BatchResult(List(options.size) { results.get(it) }, attempts.get())
+    }
+
+    private suspend fun registerWithRetries(options: DidCheqdCreateOptions, attempts: AtomicInteger): Result<CheqdRegistration> {
+        var attempt = 0
+        while (true) {
+            attempt++
+            attempts.incrementAndGet()
+            try {
+                return Result.success(registrar.register(options))
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: IOException) {
+                if (attempt >= maxAttempts) return Result.failure(e)
+                val backoff = baseBackoff.inWholeMilliseconds shl (attempt - 1)
+                if (backoff > 0) delay(Random.nextLong(backoff).milliseconds)
+            } catch (e: Exception) {
+                return Result.failure(e)
+            }
+        }
+    }
+}
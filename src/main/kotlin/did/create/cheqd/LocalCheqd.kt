@@ -0,0 +1,37 @@
+package did.create.cheqd
+
+import id.walt.did.dids.registrar.dids.DidCheqdCreateOptions
+import kotlin.random.Random
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.measureTimedValue
+
+suspend fun main() {
+    createDidCheqdLocally()
+}
+
+suspend fun createDidCheqdLocally() {
+    // blocks take 100-300 ms, 5% of the requests fail transiently
+    val ledger = LocalCheqdLedger(
+        network = "testnet",
+        writeLatency = { Random.nextLong(100, 300).milliseconds },
+        failureRate = 0.05,
+    )
+    val registrar = LocalCheqdRegistrar(ledger)
+
+    val single = registrar.register(DidCheqdCreateOptions(network = "testnet"))
+    println("DID: ${single.did} (tx ${single.transactionHash})")
+    println("DID Document: ${single.didDocument}")
+
+    val options = List(500) { DidCheqdCreateOptions(network = "testnet") }
+    for (concurrency in listOf(1, 64)) {
+        val batch = CheqdBatchRegistrar(registrar, concurrency = concurrency)
+        val requests = if (concurrency == 1) options.take(20) else options
+        val (result, duration) = measureTimedValue { batch.registerAll(requests) }
+        println("Concurrency $concurrency: ${result.succeeded} registered, ${result.failed} failed, ${result.attempts} attempts in $duration")
+    }
+
+    // reads fail transiently as well
+    var resolved = ledger.resolve(single.did)
+    while (resolved.exceptionOrNull() is LedgerUnavailableException) resolved = ledger.resolve(single.did)
+    println("Resolved ${resolved.getOrThrow()["id"]} from the local ledger with ${ledger.size} DIDs")
+}
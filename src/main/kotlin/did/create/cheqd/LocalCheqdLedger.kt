@@ -0,0 +1,127 @@
+package did.create.cheqd
+
+import crypto.encoding.Multibase
+import id.walt.crypto.keys.Key
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.did.dids.registrar.dids.DidCheqdCreateOptions
+import kotlinx.coroutines.delay
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.io.IOException
+import java.security.MessageDigest
+import java.util.HexFormat
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.random.Random
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+
+/**
+ * Transient ledger error (node unavailable, transaction not included in time). Retrying may succeed.
+ */
+class LedgerUnavailableException(message: String) : IOException(message)
+
+/**
+ * In-process stand-in for a cheqd network, for load tests and benchmarks without the live testnet.
+ *
+ * Writes behave like `MsgCreateDidDoc` transactions: the DID document is submitted together with a signature of
+ * the DID's key over it, the ledger checks the signature and that the DID is new, and the call returns after
+ * [writeLatency] (the time until the transaction is in a block). Reads take [readLatency]. With probability
+ * [failureRate] a request fails with [LedgerUnavailableException] instead. All three can be changed at runtime.
+ */
+class LocalCheqdLedger(
+    val network: String = "testnet",
+    @Volatile var writeLatency: () -> Duration = { 200.milliseconds },
+    @Volatile var readLatency: () -> Duration = { 20.milliseconds },
+    @Volatile var failureRate: Double = 0.0,
+) {
+
+    private val documents = ConcurrentHashMap<String, JsonObject>()
+    private val height = AtomicLong()
+
+    val size: Int get() = documents.size
+
+    /**
+     * Validates and stores [document] and returns the transaction hash.
+     */
+    suspend fun submitCreateDid(document: JsonObject, signature: ByteArray, publicKey: Key): String {
+        delay(writeLatency())
+        if (Random.nextDouble() < failureRate) throw LedgerUnavailableException("cheqd $network: transaction was not included (simulated)")
+
+        val did = (document["id"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("DID document has no id")
+        require(did.startsWith("did:cheqd:$network:")) { "$did does not belong to the $network network" }
+        val payload = document.toString().encodeToByteArray()
+        require(publicKey.verifyRaw(signature, payload).isSuccess) { "Invalid signature for $did" }
+        require(documents.putIfAbsent(did, document) == null) { "$did already exists" }
+
+        height.incrementAndGet()
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(payload)).uppercase()
+    }
+
+    suspend fun resolve(did: String): Result<JsonObject> = runCatching {
+        delay(readLatency())
+        if (Random.nextDouble() < failureRate) throw LedgerUnavailableException("cheqd $network: node unavailable (simulated)")
+        documents[did] ?: throw NoSuchElementException("$did not found on $network")
+    }
+}
+
+class CheqdRegistration(val did: String, val didDocument: JsonObject, val key: Key, val transactionHash: String)
+
+/**
+ * Registers `did:cheqd` DIDs on a [LocalCheqdLedger], the way the cheqd registrar does on the real network:
+ * an Ed25519 key, a document with an `Ed25519VerificationKey2020` verification method, signed by that key.
+ * The ledger stands for a single network, options for any other network are rejected.
+ *
+ * This is not a `DidService` registrar: `DidService.register` and the cheqd resolver still go to the real network.
+ */
+class LocalCheqdRegistrar(private val ledger: LocalCheqdLedger) {
+
+    suspend fun register(options: DidCheqdCreateOptions, key: Key? = null): CheqdRegistration {
+        require(options.method == "cheqd") { "Not a cheqd create option: ${options.method}" }
+        val network = options.network()
+        require(network == null || network == ledger.network) { "The local ledger runs ${ledger.network}, options are for $network" }
+        val didKey = key ?: JWKKey.generate(KeyType.Ed25519)
+        require(didKey.keyType == KeyType.Ed25519) { "cheqd DIDs are controlled by Ed25519 keys" }
+
+        val did = "did:cheqd:${ledger.network}:${UUID.randomUUID()}"
+        val document = didDocument(did, didKey.getPublicKey().getPublicKeyRepresentation())
+        val signature = didKey.signRaw(document.toString().encodeToByteArray()) as ByteArray
+        val transactionHash = ledger.submitCreateDid(document, signature, didKey.getPublicKey())
+        return CheqdRegistration(did, document, didKey, transactionHash)
+    }
+
+    // the settings are nested under "config" in the serialized create options
+    private fun DidCheqdCreateOptions.network(): String? {
+        val settings = (config as? JsonObject)?.let { it["config"] as? JsonObject ?: it } ?: return null
+        return (settings["network"] as? JsonPrimitive)?.content
+    }
+
+    private fun didDocument(did: String, publicKey: ByteArray): JsonObject {
+        val methodId = JsonPrimitive("$did#key-1")
+        return JsonObject(
+            mapOf(
+                "@context" to JsonArray(listOf(JsonPrimitive("https://www.w3.org/ns/did/v1"), JsonPrimitive("https://w3id.org/security/suites/ed25519-2020/v1"))),
+                "id" to JsonPrimitive(did),
+                "controller" to JsonArray(listOf(JsonPrimitive(did))),
+                "verificationMethod" to JsonArray(
+                    listOf(
+                        JsonObject(
+                            mapOf(
+                                "id" to methodId,
+                                "type" to JsonPrimitive("Ed25519VerificationKey2020"),
+                                "controller" to JsonPrimitive(did),
+                                // multicodec ed25519-pub (0xed 0x01) + raw key
+                                "publicKeyMultibase" to JsonPrimitive(Multibase.encodeBase58Btc(byteArrayOf(0xed.toByte(), 0x01) + publicKey)),
+                            )
+                        )
+                    )
+                ),
+                "authentication" to JsonArray(listOf(methodId)),
+                "assertionMethod" to JsonArray(listOf(methodId)),
+            )
+        )
+    }
+}
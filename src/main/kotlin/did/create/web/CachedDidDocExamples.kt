@@ -0,0 +1,39 @@
+package did.create.web
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.did.dids.DidService
+import id.walt.did.dids.registrar.dids.DidDocConfig
+import id.walt.did.dids.registrar.dids.DidWebCreateOptions
+import kotlinx.serialization.json.JsonArray
+import kotlin.time.measureTime
+
+internal suspend fun createDidWebDidDocFromCachedFragmentsExamples() {
+    println("Register did:web with a public key set, verification methods built from cached fragments")
+    val publicKeySet = List(30) { JWKKey.generate(if (it % 2 == 0) KeyType.Ed25519 else KeyType.secp256r1).getPublicKey() }.toSet()
+
+    val didResult = VerificationMethodCache.registerDidWeb(
+        domain = "wallet.walt-test.cloud",
+        path = "/wallet-api/registry/1111",
+        publicKeys = publicKeySet,
+    )
+    println("DID: ${didResult.did}")
+    println("Document has ${(didResult.didDocument["verificationMethod"] as JsonArray).size} verification methods")
+
+    // rotation checks rebuild the document for the same keys over and over
+    val registrar = measureTime {
+        repeat(20) {
+            DidService.register(
+                DidWebCreateOptions(
+                    domain = "wallet.walt-test.cloud",
+                    path = "/wallet-api/registry/1111",
+                    didDocConfig = DidDocConfig.buildFromPublicKeySet(publicKeySet = publicKeySet),
+                )
+            )
+        }
+    }
+    val cached = measureTime {
+        repeat(20) { VerificationMethodCache.registerDidWeb("wallet.walt-test.cloud", "/wallet-api/registry/1111", publicKeySet) }
+    }
+    println("20 registrations of 30 keys: registrar $registrar, cached fragments $cached")
+}
@@ -0,0 +1,117 @@
+package did.create.web
+
+import kotlinx.serialization.json.JsonObject
+import java.io.OutputStream
+import java.net.URLDecoder
+import java.nio.channels.Channels
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.security.MessageDigest
+import java.util.HexFormat
+import java.util.concurrent.ConcurrentHashMap
+import java.util.zip.GZIPOutputStream
+
+/**
+ * Writes did:web documents as static files for a web server (`sendfile`, nginx `gzip_static`, a CDN bucket sync).
+ *
+ * `did:web:example.com` is written to `<root>/example.com/.well-known/did.json`,
+ * `did:web:example.com:tenants:42` to `<root>/example.com/tenants/42/did.json`, each with a precompressed
+ * `did.json.gz` next to it. Files are written to a temporary file in the target directory and renamed over the
+ * old one, so the server never sees a partial document.
+ *
+ * A document is only rewritten when the SHA-256 of its content changed. The hashes of published documents are kept
+ * in a manifest in [root] (`.did-web-manifest`), written by [close], so unchanged tenants cost a hash and a map
+ * lookup on the next run as well.
+ */
+class StaticDidWebPublisher(
+    private val root: Path,
+    private val gzip: Boolean = true,
+) : AutoCloseable {
+
+    data class PublishResult(val did: String, val file: Path, val written: Boolean)
+
+    private val manifestFile = root.resolve(MANIFEST_FILE)
+
+    // relative path of did.json -> hex SHA-256 of its content
+    private val manifest = ConcurrentHashMap<String, String>()
+
+    init {
+        Files.createDirectories(root)
+        if (Files.isRegularFile(manifestFile)) {
+            Files.readAllLines(manifestFile).forEach { line ->
+                val separator = line.indexOf(' ')
+                if (separator > 0) manifest[line.substring(separator + 1)] = line.substring(0, separator)
+            }
+        }
+    }
+
+    /**
+     * Publishes [document] for [did], unless the published file already has the same content. Thread-safe for
+     * different DIDs.
+     */
+    fun publish(did: String, document: JsonObject): PublishResult {
+        val relative = relativePath(did)
+        val target = root.resolve(relative)
+        val content = document.toString().encodeToByteArray()
+        val hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content))
+
+        val unchanged = manifest[relative] == hash && Files.isRegularFile(target) &&
+                (!gzip || Files.isRegularFile(target.resolveSibling(target.fileName.toString() + ".gz")))
+        if (unchanged) return PublishResult(did, target, written = false)
+
+        Files.createDirectories(target.parent)
+        // the compressed sibling first: a server preferring .gz never serves an older document than the plain file
+        if (gzip) writeAtomically(target.resolveSibling(target.fileName.toString() + ".gz")) { out ->
+            GZIPOutputStream(out).run {
+                write(content)
+                finish()
+            }
+        }
+        writeAtomically(target) { out -> out.write(content) }
+        manifest[relative] = hash
+        return PublishResult(did, target, written = true)
+    }
+
+    /**
+     * Writes the content hashes of all published documents.
+     */
+    fun flush() {
+        val lines = manifest.entries.sortedBy { it.key }.map { "${it.value} ${it.key}" }
+        writeAtomically(manifestFile) { out -> out.write(lines.joinToString("\n", postfix = "\n").encodeToByteArray()) }
+    }
+
+    override fun close() = flush()
+
+    private fun writeAtomically(target: Path, write: (OutputStream) -> Unit) {
+        val temp = Files.createTempFile(target.parent, target.fileName.toString(), ".tmp")
+        try {
+            FileChannel.open(temp, StandardOpenOption.WRITE).use { channel ->
+                val out = Channels.newOutputStream(channel)
+                write(out)
+                out.flush()
+                channel.force(true)
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+        } catch (e: Exception) {
+            Files.deleteIfExists(temp)
+            throw e
+        }
+    }
+
+    private fun relativePath(did: String): String {
+        require(did.startsWith("did:web:")) { "Not a did:web DID: $did" }
+        val segments = did.removePrefix("did:web:").split(':').map { URLDecoder.decode(it, Charsets.UTF_8) }
+        require(segments.all { it.isNotEmpty() && it != "." && it != ".." && '/' !in it && '\\' !in it }) {
+            "DID $did does not map to a safe file path"
+        }
+        return if (segments.size == 1) "${segments[0]}/.well-known/did.json"
+        else segments.joinToString("/", postfix = "/did.json")
+    }
+
+    companion object {
+        const val MANIFEST_FILE = ".did-web-manifest"
+    }
+}
@@ -0,0 +1,39 @@
+package did.create.web
+
+import id.walt.crypto.keys.KeyType
+import id.walt.did.dids.DidService
+import id.walt.did.dids.registrar.dids.DidWebCreateOptions
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.nio.file.Files
+import kotlin.time.measureTimedValue
+
+internal suspend fun publishStaticDidWebDocuments() {
+    println("Publish did:web documents of 100 tenants as static files")
+    val documents = (1..100).associate { tenant ->
+        val didResult = DidService.register(
+            DidWebCreateOptions(
+                domain = "tenants.walt-test.cloud",
+                path = "/tenants/$tenant",
+                keyType = KeyType.Ed25519,
+            )
+        )
+        didResult.did to didResult.didDocument.toJsonObject()
+    }
+
+    val root = Files.createTempDirectory("did-web-static")
+    val (first, firstDuration) = measureTimedValue {
+        StaticDidWebPublisher(root).use { publisher -> documents.map { (did, document) -> publisher.publish(did, document) } }
+    }
+    println("First run: ${first.count { it.written }} of ${first.size} documents written in $firstDuration")
+    println("Example file: ${first.first().file} (${Files.size(first.first().file)} bytes)")
+
+    // one tenant added an alias, only its document is rewritten
+    val changedDid = documents.keys.first()
+    val updated = documents + (changedDid to JsonObject(documents.getValue(changedDid) + ("alsoKnownAs" to JsonArray(listOf(JsonPrimitive("https://acme.example"))))))
+    val (second, secondDuration) = measureTimedValue {
+        StaticDidWebPublisher(root).use { publisher -> updated.map { (did, document) -> publisher.publish(did, document) } }
+    }
+    println("Second run: ${second.count { it.written }} of ${second.size} documents written in $secondDuration")
+}
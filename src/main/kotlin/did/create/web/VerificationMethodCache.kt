@@ -0,0 +1,129 @@
+package did.create.web
+
+import crypto.key.thumbprint.ThumbprintCache
+import id.walt.crypto.keys.Key
+import id.walt.did.dids.document.DidDocument
+import id.walt.did.dids.document.models.verification.relationship.VerificationRelationshipType
+import id.walt.did.dids.registrar.DidResult
+import id.walt.did.dids.registrar.dids.DidDocConfig
+import id.walt.did.dids.registrar.dids.ServiceConfiguration
+import id.walt.did.dids.registrar.dids.VerificationMethodConfiguration
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import java.net.URLEncoder
+import java.util.Collections
+
+/**
+ * Verification-method fragments memoized per public key.
+ *
+ * `DidDocConfig.buildFromPublicKeySet` exports the JWK and derives the key ID of every key each time a document is
+ * built. Documents with many keys that are rebuilt on every rotation check repeat that work for keys that never
+ * changed. Here the key ID, the public JWK and the [VerificationMethodConfiguration] of a key are computed once
+ * and reused. Fragments are keyed by the RFC 7638 thumbprint of the public JWK, so a key that is loaded again (a new
+ * `Key` instance) still finds its fragment; at most [MAX_ENTRIES] fragments are kept, least recently used first out.
+ */
+object VerificationMethodCache {
+
+    class Fragment(
+        val keyId: String,
+        val publicKeyJwk: JsonObject,
+        val configuration: VerificationMethodConfiguration,
+    )
+
+    const val MAX_ENTRIES = 4096
+
+    private val fragments = Collections.synchronizedMap(object : LinkedHashMap<String, Fragment>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Fragment>) = size > MAX_ENTRIES
+    })
+
+    // verification relationships of DID documents, in the order of DID Core
+    private val RELATIONSHIPS = listOf("authentication", "assertionMethod", "keyAgreement", "capabilityInvocation", "capabilityDelegation")
+
+    private val CONTEXT = JsonArray(listOf(JsonPrimitive("https://www.w3.org/ns/did/v1"), JsonPrimitive("https://w3id.org/security/suites/jws-2020/v1")))
+
+    suspend fun fragment(publicKey: Key): Fragment {
+        ThumbprintCache.cached(publicKey)?.let { ids -> cachedFragment(ids)?.let { return it } }
+        // a key instance seen for the first time: one export yields thumbprint, key ID and the fragment's JWK
+        val jwk = publicKey.exportJWKObject()
+        val ids = ThumbprintCache.ids(publicKey, jwk)
+        return cachedFragment(ids)
+            ?: Fragment(ids.keyId, jwk, VerificationMethodConfiguration(publicKeyId = ids.keyId)).also { fragments[ids.thumbprint] = it }
+    }
+
+    // the thumbprint ignores `kid`, a key that was re-imported with another kid gets a new fragment
+    private fun cachedFragment(ids: ThumbprintCache.KeyIds): Fragment? = fragments[ids.thumbprint]?.takeIf { it.keyId == ids.keyId }
+
+    /**
+     * Same configuration as `DidDocConfig.buildFromPublicKeySet`: every key in every verification relationship.
+     *
+     * Only building the configuration benefits from the cache: a registrar that is handed this configuration still
+     * exports every key while it builds the document. Use [registerDidWeb] or [assembleDocument] to skip that too.
+     */
+    suspend fun didDocConfig(
+        publicKeySet: Set<Key>,
+        serviceConfigurationSet: Set<ServiceConfiguration> = emptySet(),
+        rootCustomProperties: Map<String, JsonElement> = emptyMap(),
+    ): DidDocConfig {
+        val keyFragments = publicKeySet.associateWith { fragment(it) }
+        val configurations = keyFragments.values.mapTo(LinkedHashSet()) { it.configuration }
+        return DidDocConfig(
+            publicKeyMap = keyFragments.entries.associate { (key, fragment) -> fragment.keyId to key },
+            verificationConfigurationMap = VerificationRelationshipType.entries.associateWith { configurations },
+            serviceConfigurationSet = serviceConfigurationSet,
+            rootCustomProperties = rootCustomProperties,
+        )
+    }
+
+    /**
+     * Creates a did:web for [domain] and [path] like `DidService.register(DidWebCreateOptions(...))` with
+     * [didDocConfig] does, but with the document assembled from the cached fragments instead of by the registrar.
+     * did:web has nothing to register, the result only has to be hosted at the URL the DID resolves to.
+     */
+    suspend fun registerDidWeb(
+        domain: String,
+        path: String,
+        publicKeys: Collection<Key>,
+        service: JsonArray? = null,
+        rootCustomProperties: Map<String, JsonElement> = emptyMap(),
+    ): DidResult {
+        val did = "did:web:" + URLEncoder.encode(domain, Charsets.UTF_8) +
+            path.split('/').filter { it.isNotEmpty() }.joinToString("") { ":" + URLEncoder.encode(it, Charsets.UTF_8) }
+        return DidResult(did, DidDocument(assembleDocument(did, publicKeys, service, rootCustomProperties)))
+    }
+
+    /**
+     * DID document for [did] with a `JsonWebKey2020` verification method per key, referenced from every verification
+     * relationship, assembled directly from the cached fragments without going through the registrar.
+     */
+    suspend fun assembleDocument(
+        did: String,
+        publicKeys: Collection<Key>,
+        service: JsonArray? = null,
+        rootCustomProperties: Map<String, JsonElement> = emptyMap(),
+    ): JsonObject {
+        val keyFragments = publicKeys.map { fragment(it) }
+        val methodIds = JsonArray(keyFragments.map { JsonPrimitive("$did#${it.keyId}") })
+        val methods = JsonArray(keyFragments.map { fragment ->
+            JsonObject(
+                mapOf(
+                    "type" to JsonPrimitive("JsonWebKey2020"),
+                    "id" to JsonPrimitive("$did#${fragment.keyId}"),
+                    "controller" to JsonPrimitive(did),
+                    "publicKeyJwk" to fragment.publicKeyJwk,
+                )
+            )
+        })
+        return JsonObject(
+            buildMap {
+                put("@context", CONTEXT)
+                put("id", JsonPrimitive(did))
+                put("verificationMethod", methods)
+                RELATIONSHIPS.forEach { put(it, methodIds) }
+                service?.let { put("service", it) }
+                putAll(rootCustomProperties)
+            }
+        )
+    }
+}
@@ -13,6 +13,8 @@ suspend fun createDidWeb() {
     createDidWebDidDocOptionsFromPublicKeySetExamples()
     createDidWebDidDocOptionsFromPublicKeySetVerificationConfigurationExamples()
     createDidWebDidDocOptionsPrimaryConstructorExamples()
+    createDidWebDidDocFromCachedFragmentsExamples()
+    publishStaticDidWebDocuments()
 }
 
 
@@ -0,0 +1,216 @@
+package did.resolve
+
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.async
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.future.await
+import kotlinx.coroutines.selects.select
+import kotlinx.coroutines.withTimeoutOrNull
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.jsonObject
+import java.net.URI
+import java.net.URLDecoder
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+import kotlin.time.toJavaDuration
+
+/**
+ * `did:web` resolver for verification paths, independent of the resolver behind `DidService`.
+ *
+ * - One shared [HttpClient] (HTTP/2 with HTTP/1.1 fallback) keeps connections to issuer hosts alive between
+ *   resolutions, with a [connectTimeout] and a per-request [requestTimeout].
+ * - Hedging: if the response takes longer than the 95th percentile of the recent latencies of that host, a second
+ *   identical request is sent and whichever succeeds first wins. Slow outliers cost about one p95 instead of the
+ *   full tail latency, for about 5% extra requests.
+ * - A circuit breaker per host: after [failureThreshold] consecutive failures (connection errors, timeouts, 5xx),
+ *   resolutions for the host fail immediately for [openDuration], then a single trial request decides whether
+ *   the circuit closes again.
+ *
+ * [scheme] is `https` as required by the did:web specification; the local stand-in server uses `http`.
+ */
+class DidWebResolver(
+    connectTimeout: Duration = 2.seconds,
+    private val requestTimeout: Duration = 5.seconds,
+    private val hedging: Boolean = true,
+    private val minHedgeDelay: Duration = 20.milliseconds,
+    private val initialHedgeDelay: Duration = 250.milliseconds,
+    private val failureThreshold: Int = 5,
+    private val openDuration: Duration = 30.seconds,
+    private val scheme: String = "https",
+    private val clock: () -> Long = System::currentTimeMillis,
+) {
+
+    private val httpClient: HttpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(connectTimeout.toJavaDuration())
+        .build()
+
+    private val hosts = ConcurrentHashMap<String, HostState>()
+
+    private val hedgedRequests = AtomicLong()
+    private val rejectedRequests = AtomicLong()
+
+    /** Number of second requests sent because the first one was slower than the hedge delay. */
+    val hedgeCount: Long get() = hedgedRequests.get()
+
+    /** Number of resolutions that failed immediately because the circuit of their host was open. */
+    val rejectedCount: Long get() = rejectedRequests.get()
+
+    /**
+     * The DID document of [did]. Failures are returned as [Result.failure], cancellation of the caller is not.
+     */
+    suspend fun resolve(did: String): Result<JsonObject> =
+        try {
+            Result.success(resolveDocument(did))
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+
+    private suspend fun resolveDocument(did: String): JsonObject {
+        val uri = documentUri(did)
+        val host = hosts.computeIfAbsent(uri.authority) { HostState() }
+        if (!host.breaker.tryAcquire()) {
+            rejectedRequests.incrementAndGet()
+            throw IllegalStateException("Circuit breaker for ${uri.authority} is open")
+        }
+
+        val response = try {
+            fetch(uri, host)
+        } catch (e: CancellationException) {
+            // the caller gave up, that says nothing about the host
+            host.breaker.onCancelled()
+            throw e
+        } catch (e: Exception) {
+            host.breaker.onFailure()
+            throw e
+        }
+        when (response.statusCode()) {
+            in 200..299 -> host.breaker.onSuccess()
+            in 500..599 -> host.breaker.onFailure()
+            // the host works, the document is missing
+            else -> host.breaker.onSuccess()
+        }
+        check(response.statusCode() in 200..299) { "Resolving $did failed with HTTP ${response.statusCode()}" }
+        return Json.parseToJsonElement(response.body()).jsonObject
+    }
+
+    /**
+     * Key of the first verification method of the DID document that has a `publicKeyJwk`.
+     */
+    suspend fun resolveToKey(did: String): Result<JWKKey> = resolve(did).mapCatching { document ->
+        val methods = document["verificationMethod"] as? JsonArray ?: throw IllegalArgumentException("DID document of $did has no verification methods")
+        val jwk = methods.firstNotNullOfOrNull { (it as? JsonObject)?.get("publicKeyJwk") as? JsonObject }
+            ?: throw IllegalArgumentException("DID document of $did has no verification method with a publicKeyJwk")
+        JWKKey.importJWK(jwk.toString()).getOrThrow()
+    }
+
+    private suspend fun fetch(uri: URI, host: HostState): HttpResponse<String> = coroutineScope {
+        val request = HttpRequest.newBuilder(uri)
+            .header("Accept", "application/did+json, application/json")
+            .timeout(requestTimeout.toJavaDuration())
+            .GET()
+            .build()
+
+        val started = clock()
+        val primary = async { runCatching { send(request) } }
+        val hedgeDelay = host.latencies.percentile95()?.milliseconds?.coerceAtLeast(minHedgeDelay) ?: initialHedgeDelay
+        val early = if (hedging) withTimeoutOrNull(hedgeDelay) { primary.await() } else primary.await()
+
+        val result = early ?: run {
+            hedgedRequests.incrementAndGet()
+            val hedge = async { runCatching { send(request) } }
+            val (first, other) = select {
+                primary.onAwait { it to hedge }
+                hedge.onAwait { it to primary }
+            }
+            if (first.isSuccess) first.also { other.cancel() } else other.await()
+        }
+        result.onSuccess { host.latencies.record(clock() - started) }.getOrThrow()
+    }
+
+    private suspend fun send(request: HttpRequest): HttpResponse<String> =
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).await()
+
+    private fun documentUri(did: String): URI {
+        require(did.startsWith("did:web:")) { "Not a did:web DID: $did" }
+        val segments = did.removePrefix("did:web:").substringBefore('#').split(':')
+            .map { URLDecoder.decode(it, Charsets.UTF_8) }
+        val path = if (segments.size == 1) "/.well-known/did.json" else segments.drop(1).joinToString("/", prefix = "/", postfix = "/did.json")
+        return URI.create("$scheme://${segments[0]}$path")
+    }
+
+    private inner class HostState {
+        val latencies = LatencyWindow(128)
+        val breaker = CircuitBreaker()
+    }
+
+    /**
+     * The last [capacity] successful latencies of a host, in milliseconds.
+     */
+    private class LatencyWindow(private val capacity: Int) {
+        private val samples = LongArray(capacity)
+        private var count = 0
+        private var next = 0
+
+        @Synchronized
+        fun record(millis: Long) {
+            samples[next] = millis
+            next = (next + 1) % capacity
+            if (count < capacity) count++
+        }
+
+        /** The 95th percentile, or null while there are too few samples for a meaningful value. */
+        @Synchronized
+        fun percentile95(): Long? {
+            if (count < 20) return null
+            val sorted = samples.copyOf(count).apply { sort() }
+            return sorted[(count * 95 + 99) / 100 - 1]
+        }
+    }
+
+    private inner class CircuitBreaker {
+        private var consecutiveFailures = 0
+        private var openUntil = 0L
+        private var trialInFlight = false
+
+        @Synchronized
+        fun tryAcquire(): Boolean {
+            if (consecutiveFailures < failureThreshold) return true
+            if (clock() < openUntil || trialInFlight) return false
+            // half open: let one trial request through
+            trialInFlight = true
+            return true
+        }
+
+        @Synchronized
+        fun onSuccess() {
+            consecutiveFailures = 0
+            trialInFlight = false
+        }
+
+        /** Releases a trial request without counting it as success or failure. */
+        @Synchronized
+        fun onCancelled() {
+            trialInFlight = false
+        }
+
+        @Synchronized
+        fun onFailure() {
+            consecutiveFailures++
+            trialInFlight = false
+            if (consecutiveFailures >= failureThreshold) openUntil = clock() + openDuration.inWholeMilliseconds
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package did.resolve
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlin.random.Random
+import kotlin.time.Duration
+import kotlin.time.measureTime
+
+suspend fun main() {
+    resolveDidWebWithHedging()
+}
+
+suspend fun resolveDidWebWithHedging() {
+    val key = JWKKey.generate(KeyType.Ed25519)
+    val publicJwk = key.getPublicKey().exportJWKObject()
+
+    // 3% of the responses take 400 ms instead of 5 ms
+    LatencyInjectingDidWebServer(latencyMillis = { if (Random.nextDouble() < 0.03) 400 else 5 }).use { server ->
+        val did = server.publish("issuers:acme") { did ->
+            JsonObject(
+                mapOf(
+                    "id" to JsonPrimitive(did),
+                    "verificationMethod" to JsonArray(
+                        listOf(
+                            JsonObject(
+                                mapOf(
+                                    "id" to JsonPrimitive("$did#key-1"),
+                                    "type" to JsonPrimitive("JsonWebKey2020"),
+                                    "controller" to JsonPrimitive(did),
+                                    "publicKeyJwk" to publicJwk,
+                                )
+                            )
+                        )
+                    ),
+                )
+            )
+        }
+        println("Published $did")
+
+        for (hedging in listOf(false, true)) {
+            val resolver = DidWebResolver(hedging = hedging, scheme = "http")
+            val latencies = List(300) { measureTime { resolver.resolve(did).getOrThrow() } }.sorted()
+            println(
+                "Hedging $hedging: p50 ${latencies.percentile(50)}, p99 ${latencies.percentile(99)}, max ${latencies.last()}, " +
+                        "hedged requests ${resolver.hedgeCount}"
+            )
+        }
+
+        val resolver = DidWebResolver(scheme = "http", failureThreshold = 3)
+        println("Resolved key matches: ${resolver.resolveToKey(did).getOrThrow().getThumbprint() == key.getThumbprint()}")
+
+        server.failureRate = 1.0
+        repeat(5) { attempt ->
+            println("Failing host, attempt $attempt: ${resolver.resolve(did).exceptionOrNull()?.message}")
+        }
+        println("Rejected by the circuit breaker: ${resolver.rejectedCount}")
+    }
+}
+
+private fun List<Duration>.percentile(p: Int): Duration = this[(size * p + 99) / 100 - 1]
@@ -0,0 +1,66 @@
+package did.resolve
+
+import com.sun.net.httpserver.HttpServer
+import kotlinx.serialization.json.JsonObject
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import kotlin.random.Random
+
+/**
+ * Local stand-in for issuer web servers hosting `did.json` documents, with injected latency and failures.
+ *
+ * Every request sleeps for [latencyMillis] before it is answered, and fails with HTTP 503 with probability
+ * [failureRate]. Both can be changed while the server is running. DIDs of published documents point to
+ * `localhost:<port>`, resolve them with a [DidWebResolver] with scheme `http`.
+ */
+class LatencyInjectingDidWebServer(
+    @Volatile var latencyMillis: () -> Long = { 0 },
+    @Volatile var failureRate: Double = 0.0,
+) : AutoCloseable {
+
+    private val documents = ConcurrentHashMap<String, ByteArray>()
+
+    private val executor: ExecutorService = Executors.newCachedThreadPool { runnable ->
+        Thread(runnable, "did-web-stand-in").apply { isDaemon = true }
+    }
+
+    private val server: HttpServer = HttpServer.create(InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0).apply {
+        executor = this@LatencyInjectingDidWebServer.executor
+        createContext("/") { exchange ->
+            exchange.use {
+                Thread.sleep(latencyMillis())
+                val document = documents[exchange.requestURI.path]
+                when {
+                    Random.nextDouble() < failureRate -> exchange.sendResponseHeaders(503, -1)
+                    document == null -> exchange.sendResponseHeaders(404, -1)
+                    else -> {
+                        exchange.responseHeaders.add("Content-Type", "application/did+json")
+                        exchange.sendResponseHeaders(200, document.size.toLong())
+                        exchange.responseBody.write(document)
+                    }
+                }
+            }
+        }
+        start()
+    }
+
+    val port: Int get() = server.address.port
+
+    /**
+     * Publishes [document] under [path] (e.g. `issuers:acme`, empty for `/.well-known/did.json`) and returns its DID.
+     */
+    fun publish(path: String, document: (did: String) -> JsonObject): String {
+        val did = "did:web:localhost%3A$port" + if (path.isEmpty()) "" else ":$path"
+        val httpPath = if (path.isEmpty()) "/.well-known/did.json" else "/" + path.replace(':', '/') + "/did.json"
+        documents[httpPath] = document(did).toString().encodeToByteArray()
+        return did
+    }
+
+    override fun close() {
+        server.stop(0)
+        executor.shutdownNow()
+    }
+}
@@ -0,0 +1,39 @@
+package mdoc
+
+import id.walt.mdoc.dataelement.BooleanElement
+import id.walt.mdoc.dataelement.StringElement
+import id.walt.mdoc.doc.MDoc
+import id.walt.mdoc.doc.MDocVerificationParams
+import id.walt.mdoc.doc.VerificationType
+import kotlin.time.measureTime
+
+suspend fun main() {
+    issueAndVerifyMdl()
+}
+
+/** The elements a turnstile needs: is the holder of age, and whose licence is it. */
+val TURNSTILE_REQUEST = mapOf(
+    MdocTestIssuer.MDL_NAMESPACE to setOf("age_over_18", "family_name", "given_name"),
+)
+
+suspend fun issueAndVerifyMdl() {
+    val issuer = MdocTestIssuer()
+    val mdoc = issuer.issueMdl()
+    val cbor = mdoc.toCBOR()
+    println("Issued mDL: ${cbor.size} bytes CBOR, ${mdoc.getIssuerSignedItems(MdocTestIssuer.MDL_NAMESPACE).size} data elements")
+
+    val received = MDoc.fromCBOR(cbor)
+    val params = MDocVerificationParams(VerificationType.forIssuance, MdocTestIssuer.ISSUER_KEY_ID)
+    println("Full verification: ${received.verify(params, issuer.cryptoProvider)}")
+
+    val verifier = SelectiveMdocVerifier(issuer.cryptoProvider, MdocTestIssuer.ISSUER_KEY_ID)
+    verifier.verify(received, TURNSTILE_REQUEST).getOrThrow().forEach { (nameSpace, elements) ->
+        elements.forEach { (identifier, value) -> println("Verified $nameSpace/$identifier = ${(value as? StringElement)?.value ?: (value as? BooleanElement)?.value}") }
+    }
+    val missing = verifier.verify(received, mapOf(MdocTestIssuer.MDL_NAMESPACE to setOf("resident_address"))).getOrThrow()
+    println("Requesting an element that was not issued, verified elements: ${missing[MdocTestIssuer.MDL_NAMESPACE]?.keys}")
+
+    val full = measureTime { repeat(1_000) { MDoc.fromCBOR(cbor).verify(params, issuer.cryptoProvider) } }
+    val selective = measureTime { repeat(1_000) { verifier.verify(MDoc.fromCBOR(cbor), TURNSTILE_REQUEST).getOrThrow() } }
+    println("Decode + verify, per mDL: full ${full / 1_000}, selective ${selective / 1_000}")
+}
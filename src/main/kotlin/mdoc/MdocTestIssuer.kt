@@ -0,0 +1,125 @@
+package mdoc
+
+import COSE.AlgorithmID
+import COSE.OneKey
+import id.walt.mdoc.COSECryptoProviderKeyInfo
+import id.walt.mdoc.SimpleCOSECryptoProvider
+import id.walt.mdoc.dataelement.BooleanElement
+import id.walt.mdoc.dataelement.ByteStringElement
+import id.walt.mdoc.dataelement.DataElement
+import id.walt.mdoc.dataelement.ListElement
+import id.walt.mdoc.dataelement.MapElement
+import id.walt.mdoc.dataelement.MapKey
+import id.walt.mdoc.dataelement.NumberElement
+import id.walt.mdoc.dataelement.StringElement
+import id.walt.mdoc.doc.MDoc
+import id.walt.mdoc.doc.MDocBuilder
+import id.walt.mdoc.mso.DeviceKeyInfo
+import id.walt.mdoc.mso.ValidityInfo
+import kotlinx.datetime.Clock
+import kotlinx.datetime.DateTimeUnit
+import kotlinx.datetime.plus
+import org.bouncycastle.asn1.x500.X500Name
+import org.bouncycastle.asn1.x509.BasicConstraints
+import org.bouncycastle.asn1.x509.Extension
+import org.bouncycastle.asn1.x509.KeyUsage
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder
+import java.math.BigInteger
+import java.security.KeyPair
+import java.security.KeyPairGenerator
+import java.security.PrivateKey
+import java.security.PublicKey
+import java.security.SecureRandom
+import java.security.cert.X509Certificate
+import java.security.spec.ECGenParameterSpec
+import java.time.Instant
+import java.util.Date
+import kotlin.random.Random
+
+/**
+ * Self-contained mDL issuer for examples and benchmarks: a P-256 root CA, an issuer (document signer) certificate
+ * signed by it, and a [SimpleCOSECryptoProvider] that signs with the issuer key and trusts the root CA.
+ */
+class MdocTestIssuer {
+
+    private val rootKeyPair = ecKeyPair()
+    private val issuerKeyPair = ecKeyPair()
+    private val deviceKeyPair = ecKeyPair()
+
+    val rootCertificate: X509Certificate = certificate(
+        "CN=Examples mDL Root CA", rootKeyPair.public, "CN=Examples mDL Root CA", rootKeyPair.private, ca = true,
+    )
+    val issuerCertificate: X509Certificate = certificate(
+        "CN=Examples mDL Document Signer", issuerKeyPair.public, "CN=Examples mDL Root CA", rootKeyPair.private, ca = false,
+    )
+
+    val cryptoProvider = SimpleCOSECryptoProvider(
+        listOf(
+            COSECryptoProviderKeyInfo(
+                ISSUER_KEY_ID, AlgorithmID.ECDSA_256, issuerKeyPair.public, issuerKeyPair.private,
+                listOf(issuerCertificate), listOf(rootCertificate),
+            )
+        )
+    )
+
+    /**
+     * Signed mDL with the usual ISO 18013-5 data elements and a [portraitSize]-byte portrait.
+     */
+    fun issueMdl(familyName: String = "Doe", givenName: String = "John", portraitSize: Int = 16 * 1024): MDoc {
+        val now = Clock.System.now()
+        val deviceKeyInfo = DeviceKeyInfo(DataElement.fromCBOR(OneKey(deviceKeyPair.public, null).AsCBOR().EncodeToBytes()))
+        return MDocBuilder(MDL_DOC_TYPE)
+            .addItemToSign(MDL_NAMESPACE, "family_name", StringElement(familyName))
+            .addItemToSign(MDL_NAMESPACE, "given_name", StringElement(givenName))
+            .addItemToSign(MDL_NAMESPACE, "birth_date", StringElement("1990-05-17"))
+            .addItemToSign(MDL_NAMESPACE, "issue_date", StringElement("2024-01-15"))
+            .addItemToSign(MDL_NAMESPACE, "expiry_date", StringElement("2034-01-15"))
+            .addItemToSign(MDL_NAMESPACE, "issuing_country", StringElement("AT"))
+            .addItemToSign(MDL_NAMESPACE, "issuing_authority", StringElement("Examples Road Authority"))
+            .addItemToSign(MDL_NAMESPACE, "document_number", StringElement("AT-DL-4711"))
+            .addItemToSign(MDL_NAMESPACE, "portrait", ByteStringElement(Random.nextBytes(portraitSize)))
+            .addItemToSign(MDL_NAMESPACE, "un_distinguishing_sign", StringElement("A"))
+            .addItemToSign(MDL_NAMESPACE, "age_over_18", BooleanElement(true))
+            .addItemToSign(MDL_NAMESPACE, "age_over_21", BooleanElement(true))
+            .addItemToSign(MDL_NAMESPACE, "age_in_years", NumberElement(34))
+            .addItemToSign(
+                MDL_NAMESPACE, "driving_privileges", ListElement(
+                    listOf("AM", "A", "B").map { category ->
+                        MapElement(
+                            mapOf(
+                                MapKey("vehicle_category_code") to StringElement(category),
+                                MapKey("issue_date") to StringElement("2024-01-15"),
+                                MapKey("expiry_date") to StringElement("2034-01-15"),
+                            )
+                        )
+                    }
+                )
+            )
+            .sign(
+                ValidityInfo(now, now, now.plus(365 * 24, DateTimeUnit.HOUR)),
+                deviceKeyInfo, cryptoProvider, ISSUER_KEY_ID,
+            )
+    }
+
+    companion object {
+        const val ISSUER_KEY_ID = "mdl-document-signer"
+        const val MDL_DOC_TYPE = "org.iso.18013.5.1.mDL"
+        const val MDL_NAMESPACE = "org.iso.18013.5.1"
+
+        private fun ecKeyPair(): KeyPair =
+            KeyPairGenerator.getInstance("EC").apply { initialize(ECGenParameterSpec("secp256r1")) }.generateKeyPair()
+
+        private fun certificate(subject: String, publicKey: PublicKey, issuer: String, signingKey: PrivateKey, ca: Boolean): X509Certificate {
+            val now = Instant.now()
+            val builder = JcaX509v3CertificateBuilder(
+                X500Name(issuer), BigInteger(64, SecureRandom()), Date.from(now.minusSeconds(60)),
+                Date.from(now.plusSeconds(365L * 24 * 3600)), X500Name(subject), publicKey,
+            )
+                .addExtension(Extension.basicConstraints, true, BasicConstraints(ca))
+                .addExtension(Extension.keyUsage, true, KeyUsage(if (ca) KeyUsage.keyCertSign or KeyUsage.cRLSign else KeyUsage.digitalSignature))
+            return JcaX509CertificateConverter().getCertificate(builder.build(JcaContentSignerBuilder("SHA256withECDSA").build(signingKey)))
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package mdoc
+
+import id.walt.mdoc.COSECryptoProvider
+import id.walt.mdoc.dataelement.AnyDataElement
+import id.walt.mdoc.dataelement.ByteStringElement
+import id.walt.mdoc.dataelement.EncodedCBORElement
+import id.walt.mdoc.dataelement.MapElement
+import id.walt.mdoc.dataelement.MapKey
+import id.walt.mdoc.dataelement.StringElement
+import id.walt.mdoc.doc.MDoc
+import id.walt.mdoc.issuersigned.IssuerSignedItem
+import java.security.MessageDigest
+
+/**
+ * mdoc verification for a known request, e.g. `age_over_18` and `family_name` at a turnstile.
+ *
+ * Document type, validity, certificate chain and the COSE_Sign1 issuer signature over the MSO are checked like in
+ * `MDoc.verify`, but digests are only validated for the requested data elements instead of every element of every
+ * namespace. The element identifier of every item is read by walking the CBOR headers of the item map, values are
+ * skipped by their length, and only the items of requested elements are decoded. A large portrait the verifier
+ * didn't ask for is therefore neither read, decoded nor hashed. Only the verified values are returned, per namespace
+ * and element identifier; requested elements the holder didn't disclose are absent from the result.
+ */
+class SelectiveMdocVerifier(
+    private val cryptoProvider: COSECryptoProvider,
+    private val issuerKeyID: String? = null,
+    private val checkCertificate: Boolean = true,
+) {
+
+    fun verify(mdoc: MDoc, requested: Map<String, Set<String>>): Result<Map<String, Map<String, AnyDataElement>>> = runCatching {
+        val mso = checkNotNull(mdoc.MSO) { "mdoc has no mobile security object" }
+        check(mdoc.verifyDocType()) { "docType ${mdoc.docType.value} does not match the MSO" }
+        check(mdoc.verifyValidity()) { "mdoc is not valid at this time" }
+        check(!checkCertificate || mdoc.verifyCertificate(cryptoProvider, issuerKeyID)) { "Untrusted issuer certificate" }
+        check(mdoc.verifySignature(cryptoProvider, issuerKeyID)) { "Invalid issuer signature" }
+
+        val digest = MessageDigest.getInstance(mso.digestAlgorithm.value)
+        requested.mapValues { (nameSpace, identifiers) ->
+            val disclosed = find(mdoc.issuerSigned.nameSpaces?.get(nameSpace).orEmpty(), identifiers)
+            if (disclosed.isEmpty()) return@mapValues emptyMap()
+            val digests = checkNotNull(mso.valueDigests.value[MapKey(nameSpace)] as? MapElement) { "MSO has no digests for $nameSpace" }
+            disclosed.mapValues { (identifier, encoded) ->
+                val item = encoded.decode<IssuerSignedItem>()
+                check(item.elementIdentifier.value == identifier) { "Malformed item for $nameSpace/$identifier" }
+                val expected = checkNotNull(digests.value[MapKey(item.digestID.value.toInt())] as? ByteStringElement) {
+                    "MSO has no digest ${item.digestID.value} for $nameSpace/$identifier"
+                }
+                check(MessageDigest.isEqual(digest.digest(encoded.toCBOR()), expected.value)) { "Digest mismatch for $nameSpace/$identifier" }
+                item.elementValue
+            }
+        }
+    }
+
+    /**
+     * The encoded items of the requested [identifiers], in one pass over [items] that stops once all are found.
+     * Items are only decoded if their identifier can't be read from the headers (an indefinite-length identifier).
+     */
+    private fun find(items: List<EncodedCBORElement>, identifiers: Set<String>): Map<String, EncodedCBORElement> {
+        val found = HashMap<String, EncodedCBORElement>(identifiers.size * 2)
+        for (item in items) {
+            val identifier = elementIdentifier(item.value) ?: item.decode<IssuerSignedItem>().elementIdentifier.value
+            if (identifier in identifiers) found.putIfAbsent(identifier, item)
+            if (found.size == identifiers.size) break
+        }
+        return found
+    }
+
+    companion object {
+        private val ELEMENT_IDENTIFIER = StringElement("elementIdentifier").toCBOR()
+
+        private const val MAJOR_TEXT = 3
+        private const val MAJOR_MAP = 5
+        private const val INDEFINITE = 31
+        private const val BREAK = 0xff.toByte()
+
+        /**
+         * The `elementIdentifier` of the encoded IssuerSignedItem [item], read from the item map without decoding
+         * it. Null if the item has no definite-length text identifier.
+         */
+        internal fun elementIdentifier(item: ByteArray): String? {
+            val reader = CborHeaderReader(item)
+            if (reader.major() != MAJOR_MAP) return null
+            val members = reader.length()
+            var member = 0L
+            while (if (members < 0) !reader.atBreak() else member++ < members) {
+                if (reader.startsWith(ELEMENT_IDENTIFIER)) {
+                    reader.position += ELEMENT_IDENTIFIER.size
+                    if (reader.major() != MAJOR_TEXT) return null
+                    val length = reader.length()
+                    return if (length < 0) null else String(item, reader.position, length.toInt(), Charsets.UTF_8)
+                }
+                reader.skip()
+                reader.skip()
+            }
+            return null
+        }
+    }
+
+    /**
+     * Minimal CBOR (RFC 8949) header reader: strings are skipped by their length without reading their content,
+     * arrays, maps and tags by skipping their elements.
+     */
+    private class CborHeaderReader(private val bytes: ByteArray) {
+        var position = 0
+
+        fun major(): Int = (bytes[position].toInt() and 0xff) ushr 5
+
+        fun atBreak(): Boolean = bytes[position] == BREAK
+
+        fun startsWith(prefix: ByteArray): Boolean {
+            if (position + prefix.size > bytes.size) return false
+            for (i in prefix.indices) if (bytes[position + i] != prefix[i]) return false
+            return true
+        }
+
+        /** Reads the head of the current data item, returns its argument or -1 for an indefinite length. */
+        fun length(): Long {
+            val info = bytes[position++].toInt() and 0x1f
+            return when {
+                info < 24 -> info.toLong()
+                info == INDEFINITE -> -1
+                info > 27 -> throw IllegalArgumentException("Invalid CBOR head at offset ${position - 1}")
+                else -> {
+                    var value = 0L
+                    repeat(1 shl (info - 24)) { value = (value shl 8) or (bytes[position++].toLong() and 0xff) }
+                    value
+                }
+            }
+        }
+
+        fun skip() {
+            val major = major()
+            val length = length()
+            if (length < 0) {
+                // indefinite-length string, array or map: chunks or elements until the break byte
+                while (!atBreak()) {
+                    skip()
+                    if (major == MAJOR_MAP) skip()
+                }
+                position++
+                return
+            }
+            when (major) {
+                2, MAJOR_TEXT -> {
+                    require(length <= bytes.size - position) { "CBOR string exceeds the item" }
+                    position += length.toInt()
+                }
+                4 -> repeat(length.toInt()) { skip() }
+                MAJOR_MAP -> repeat(length.toInt()) { skip(); skip() }
+                6 -> skip()
+                // integers and simple values/floats have no content after the head
+            }
+        }
+    }
+}
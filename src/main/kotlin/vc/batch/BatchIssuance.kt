@@ -0,0 +1,70 @@
+package vc.batch
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.did.dids.DidService
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.policies.JwtSignaturePolicy
+import id.walt.w3c.vc.vcs.W3CVC
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.util.Base64
+import kotlin.time.measureTimedValue
+
+suspend fun main() {
+    issueMerkleBatch()
+}
+
+suspend fun issueMerkleBatch() {
+    DidService.minimalInit()
+
+    val issuerKey = JWKKey.generate(KeyType.Ed25519)
+    val issuerDid = DidService.registerByKey("key", issuerKey).did
+    val credentials = List(1_000) { batchCredential(issuerDid, it) }
+
+    val (individual, individualDuration) = measureTimedValue {
+        credentials.map { vc ->
+            vc.signJws(issuerKey = issuerKey, issuerId = issuerDid, issuerKid = issuerKey.getKeyId(), subjectDid = "did:example:holder")
+        }
+    }
+    val (batch, batchDuration) = measureTimedValue {
+        MerkleBatchIssuer(issuerKey, issuerDid, issuerKey.getKeyId()).issue(credentials)
+    }
+    println("Issued ${individual.size} credentials one signature each in $individualDuration, as Merkle batch in $batchDuration")
+    println("Batch credential: ${batch[42]}")
+
+    Verifier.verifyCredential(batch[42], listOf(PolicyRequest(MerkleBatchSignaturePolicy()))).forEach { verification ->
+        println("[${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+    Verifier.verifyCredential(batch[42], listOf(PolicyRequest(JwtSignaturePolicy()))).forEach { verification ->
+        println("[${verification.request.policy.name}] -> Success=${verification.isSuccess()} (batch credentials carry no per-credential signature)")
+    }
+
+    // a credential whose claims were changed after issuance no longer hashes to a leaf of the signed tree
+    val (header, payload, signature) = batch[42].split('.')
+    val claims = Json.parseToJsonElement(Base64.getUrlDecoder().decode(payload).decodeToString()).jsonObject
+    val tampered = JsonObject(claims + ("sub" to JsonPrimitive("did:example:mallory")))
+    val tamperedJwt = "$header.${Base64.getUrlEncoder().withoutPadding().encodeToString(tampered.toString().encodeToByteArray())}.$signature"
+    Verifier.verifyCredential(tamperedJwt, listOf(PolicyRequest(MerkleBatchSignaturePolicy()))).forEach { verification ->
+        println("Tampered: [${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+}
+
+fun batchCredential(issuerDid: String, number: Int): W3CVC = W3CVC.build(
+    context = listOf("https://www.w3.org/2018/credentials/v1"),
+    type = listOf("VerifiableCredential", "UniversityDegreeCredential"),
+
+    "id" to "urn:uuid:batch-credential-$number",
+    "issuer" to issuerDid,
+    "issuanceDate" to "2024-06-01T00:00:00Z",
+    "credentialSubject" to mapOf(
+        "id" to "did:example:holder-$number",
+        "degree" to mapOf(
+            "type" to "BachelorDegree",
+            "name" to "Bachelor of Science and Arts",
+        ),
+    )
+)
@@ -0,0 +1,119 @@
+package vc.batch
+
+import id.walt.crypto.keys.Key
+import id.walt.w3c.vc.vcs.W3CVC
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.time.Instant
+import java.util.Base64
+
+/**
+ * Opt-in batch issuance: instead of one signature per credential, the JWT payloads of a whole batch are hashed
+ * into a [MerkleTree] and only the root is signed, once, with the issuer key.
+ *
+ * Every issued credential is a JWT whose payload carries a `merkleProof` claim with the signed root (a compact
+ * JWS with `iss`, `kid`, `root` and `count`), the leaf index and the inclusion path. The leaf is the hash of the
+ * canonical JSON of the payload without that claim. The third segment of the JWT repeats the root signature, so
+ * the token parses like any other JWT, but it does not verify with `JwtSignaturePolicy`: use
+ * [MerkleBatchSignaturePolicy] instead.
+ */
+class MerkleBatchIssuer(
+    private val issuerKey: Key,
+    private val issuerDid: String,
+    private val issuerKid: String,
+) {
+
+    suspend fun issue(credentials: List<W3CVC>): List<String> {
+        val issuedAt = Instant.now().epochSecond
+        val payloads = credentials.map { credentialPayload(it, issuedAt) }
+        val tree = MerkleTree(payloads.map { MerkleTree.leafHash(canonicalJson(it).encodeToByteArray()) })
+
+        val encoder = Base64.getUrlEncoder().withoutPadding()
+        val rootPayload = JsonObject(
+            mapOf(
+                "iss" to JsonPrimitive(issuerDid),
+                "kid" to JsonPrimitive(issuerKid),
+                "root" to JsonPrimitive(encoder.encodeToString(tree.root)),
+                "count" to JsonPrimitive(tree.size),
+                "iat" to JsonPrimitive(issuedAt),
+            )
+        )
+        val rootJws = issuerKey.signJws(rootPayload.toString().encodeToByteArray())
+
+        val rootHeader = Json.parseToJsonElement(Base64.getUrlDecoder().decode(rootJws.substringBefore('.')).decodeToString()).jsonObject
+        val header = JsonObject(
+            mapOf(
+                "alg" to (rootHeader["alg"] ?: JsonPrimitive("none")),
+                "kid" to JsonPrimitive(issuerKid),
+                "typ" to JsonPrimitive("JWT"),
+            )
+        )
+        val encodedHeader = encoder.encodeToString(header.toString().encodeToByteArray())
+        val signature = rootJws.substringAfterLast('.')
+
+        return payloads.mapIndexed { index, payload ->
+            val proof = JsonObject(
+                mapOf(
+                    "rootJws" to JsonPrimitive(rootJws),
+                    "index" to JsonPrimitive(index),
+                    "path" to JsonArray(tree.proof(index).map { JsonPrimitive(encoder.encodeToString(it)) }),
+                )
+            )
+            val withProof = JsonObject(payload + (MERKLE_PROOF_CLAIM to proof))
+            "$encodedHeader.${encoder.encodeToString(withProof.toString().encodeToByteArray())}.$signature"
+        }
+    }
+
+    private fun credentialPayload(vc: W3CVC, issuedAt: Long): JsonObject {
+        val credential = vc.toJsonObject()
+        val subject = ((credential["credentialSubject"] as? JsonObject)?.get("id") as? JsonPrimitive)?.content
+        val id = (credential["id"] as? JsonPrimitive)?.content
+        return JsonObject(
+            buildMap {
+                put("iss", JsonPrimitive(issuerDid))
+                subject?.let { put("sub", JsonPrimitive(it)) }
+                id?.let { put("jti", JsonPrimitive(it)) }
+                put("iat", JsonPrimitive(issuedAt))
+                put("nbf", JsonPrimitive(issuedAt))
+                put("vc", credential)
+            }
+        )
+    }
+
+    companion object {
+        const val MERKLE_PROOF_CLAIM = "merkleProof"
+    }
+}
+
+/**
+ * JSON with object members sorted by name and no insignificant whitespace. Issuer and verifier hash the same
+ * bytes for the same claims, independent of member order after parsing.
+ */
+internal fun canonicalJson(element: JsonElement): String = StringBuilder().also { writeCanonical(element, it) }.toString()
+
+private fun writeCanonical(element: JsonElement, out: StringBuilder) {
+    when (element) {
+        is JsonObject -> {
+            out.append('{')
+            element.keys.sorted().forEachIndexed { i, name ->
+                if (i > 0) out.append(',')
+                out.append(JsonPrimitive(name).toString()).append(':')
+                writeCanonical(element.getValue(name), out)
+            }
+            out.append('}')
+        }
+        is JsonArray -> {
+            out.append('[')
+            element.forEachIndexed { i, item ->
+                if (i > 0) out.append(',')
+                writeCanonical(item, out)
+            }
+            out.append(']')
+        }
+        else -> out.append(element.toString())
+    }
+}
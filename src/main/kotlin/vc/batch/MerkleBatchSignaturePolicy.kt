@@ -0,0 +1,70 @@
+package vc.batch
+
+import id.walt.did.dids.DidService
+import id.walt.policies.CredentialWrapperValidatorPolicy
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.intOrNull
+import kotlinx.serialization.json.jsonObject
+import java.util.Base64
+
+/**
+ * Verifies credentials issued by [MerkleBatchIssuer], as replacement for `JwtSignaturePolicy`.
+ *
+ * The credential payload is hashed and combined with its inclusion path, the result has to match the root of the
+ * embedded root JWS. The root JWS is verified with the key resolved from its issuer DID, which must be the issuer
+ * of the credential. Verified roots are remembered (bounded, least recently used first out), so a verifier that
+ * sees many credentials of the same batch checks the issuer signature only once.
+ */
+class MerkleBatchSignaturePolicy : CredentialWrapperValidatorPolicy() {
+    override val name = "merkle-batch-signature"
+    override val description = "Checks the Merkle inclusion proof of a batch-issued credential and the issuer signature over the batch root."
+
+    override suspend fun verify(data: JsonObject, args: Any?, context: Map<String, Any>): Result<Any> = runCatching {
+        val proof = data[MerkleBatchIssuer.MERKLE_PROOF_CLAIM] as? JsonObject
+            ?: throw IllegalArgumentException("Credential has no ${MerkleBatchIssuer.MERKLE_PROOF_CLAIM} claim")
+        val rootJws = (proof["rootJws"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("Proof has no root JWS")
+        val index = (proof["index"] as? JsonPrimitive)?.intOrNull ?: throw IllegalArgumentException("Proof has no leaf index")
+        val decoder = Base64.getUrlDecoder()
+        val path = (proof["path"] as? JsonArray)?.map { decoder.decode((it as JsonPrimitive).content) }
+            ?: throw IllegalArgumentException("Proof has no inclusion path")
+
+        val issuer = (data["iss"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("Credential has no issuer")
+        val root = verifiedRoot(rootJws)
+        require((root["iss"] as? JsonPrimitive)?.content == issuer) { "Batch root was signed by ${root["iss"]}, not by $issuer" }
+        val count = (root["count"] as? JsonPrimitive)?.intOrNull ?: throw IllegalArgumentException("Batch root has no leaf count")
+
+        val leaf = MerkleTree.leafHash(canonicalJson(JsonObject(data - MerkleBatchIssuer.MERKLE_PROOF_CLAIM)).encodeToByteArray())
+        val computedRoot = MerkleTree.rootFromProof(leaf, index, count, path)
+        require(computedRoot.contentEquals(decoder.decode((root["root"] as JsonPrimitive).content))) {
+            "Credential is not part of the signed batch"
+        }
+        JsonObject(mapOf("issuer" to JsonPrimitive(issuer), "index" to JsonPrimitive(index), "batchSize" to JsonPrimitive(count)))
+    }
+
+    private suspend fun verifiedRoot(rootJws: String): JsonObject {
+        synchronized(verifiedRoots) { verifiedRoots[rootJws] }?.let { return it }
+
+        val unverified = decodeJwsPayload(rootJws)
+        val issuer = (unverified["iss"] as? JsonPrimitive)?.content ?: throw IllegalArgumentException("Batch root has no issuer")
+        val issuerKey = DidService.resolveToKey(issuer).getOrThrow()
+        val payload = issuerKey.verifyJws(rootJws).getOrThrow().jsonObject
+        synchronized(verifiedRoots) { verifiedRoots[rootJws] = payload }
+        return payload
+    }
+
+    private fun decodeJwsPayload(jws: String): JsonObject {
+        val payload = jws.split('.').getOrNull(1) ?: throw IllegalArgumentException("Batch root is not a compact JWS")
+        return Json.parseToJsonElement(Base64.getUrlDecoder().decode(payload).decodeToString()).jsonObject
+    }
+
+    companion object {
+        private const val MAX_VERIFIED_ROOTS = 1024
+
+        private val verifiedRoots = object : LinkedHashMap<String, JsonObject>(16, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, JsonObject>) = size > MAX_VERIFIED_ROOTS
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package vc.batch
+
+import java.security.MessageDigest
+
+/**
+ * Binary SHA-256 Merkle tree over credential hashes.
+ *
+ * Leaves and inner nodes are hashed with different prefixes (`0x00` / `0x01`, as in RFC 6962), so a leaf can't be
+ * passed off as an inner node. A node without a sibling at the end of a level is promoted to the next level
+ * unchanged. Proofs therefore only depend on the leaf index and the leaf count, and list the sibling hashes from
+ * the bottom up.
+ */
+class MerkleTree(leaves: List<ByteArray>) {
+
+    private val levels: List<List<ByteArray>>
+
+    init {
+        require(leaves.isNotEmpty()) { "A Merkle tree needs at least one leaf" }
+        val levels = mutableListOf(leaves)
+        while (levels.last().size > 1) {
+            val level = levels.last()
+            levels += List((level.size + 1) / 2) { i ->
+                if (2 * i + 1 < level.size) nodeHash(level[2 * i], level[2 * i + 1]) else level[2 * i]
+            }
+        }
+        this.levels = levels
+    }
+
+    val size: Int get() = levels.first().size
+
+    val root: ByteArray get() = levels.last().first()
+
+    fun proof(index: Int): List<ByteArray> {
+        require(index in 0 until size) { "Leaf index $index out of range 0 until $size" }
+        val path = ArrayList<ByteArray>()
+        var position = index
+        for (level in levels.dropLast(1)) {
+            val sibling = position xor 1
+            if (sibling < level.size) path += level[sibling]
+            position /= 2
+        }
+        return path
+    }
+
+    companion object {
+
+        private val digest = ThreadLocal.withInitial { MessageDigest.getInstance("SHA-256") }
+
+        fun leafHash(data: ByteArray): ByteArray = digest.get().run {
+            update(0x00)
+            digest(data)
+        }
+
+        fun nodeHash(left: ByteArray, right: ByteArray): ByteArray = digest.get().run {
+            update(0x01)
+            update(left)
+            digest(right)
+        }
+
+        /**
+         * Recomputes the root from a leaf hash and its inclusion proof.
+         */
+        fun rootFromProof(leaf: ByteArray, index: Int, leafCount: Int, path: List<ByteArray>): ByteArray {
+            require(index in 0 until leafCount) { "Leaf index $index out of range 0 until $leafCount" }
+            var hash = leaf
+            var position = index
+            var levelSize = leafCount
+            var next = 0
+            while (levelSize > 1) {
+                if (position % 2 == 1) {
+                    hash = nodeHash(path.getOrElse(next++) { throw IllegalArgumentException("Inclusion proof too short") }, hash)
+                } else if (position + 1 < levelSize) {
+                    hash = nodeHash(hash, path.getOrElse(next++) { throw IllegalArgumentException("Inclusion proof too short") })
+                }
+                position /= 2
+                levelSize = (levelSize + 1) / 2
+            }
+            require(next == path.size) { "Inclusion proof too long" }
+            return hash
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package vc.jsonld
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.jsonObject
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.file.Files
+import java.nio.file.Path
+import java.time.Duration
+
+/**
+ * Fetches the well-known JSON-LD contexts into `src/main/resources/jsonld`, from where they are
+ * bundled with the examples and served by [JsonLdContextCache] without network access:
+ *
+ * ```
+ * ./gradlew run -PmainClass=vc.jsonld.BundleContextsKt
+ * ```
+ */
+fun main() {
+    bundleWellKnownContexts(Path.of("src", "main", "resources", "jsonld"))
+}
+
+/**
+ * Downloads every context in [JsonLdContextCache.WELL_KNOWN_CONTEXTS] and writes the response body unchanged to
+ * [resourceDirectory]. The cache is bypassed on purpose: it would serve the bundled copies that are being refreshed.
+ */
+fun bundleWellKnownContexts(resourceDirectory: Path) {
+    Files.createDirectories(resourceDirectory)
+    val httpClient = HttpClient.newBuilder()
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build()
+    JsonLdContextCache.WELL_KNOWN_CONTEXTS.forEach { url ->
+        val result = runCatching {
+            val request = HttpRequest.newBuilder(URI.create(url))
+                .header("Accept", "application/ld+json, application/json")
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build()
+            val response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray())
+            check(response.statusCode() in 200..299) { "HTTP ${response.statusCode()}" }
+            // only write documents that are JSON-LD contexts at all
+            Json.parseToJsonElement(response.body().decodeToString()).jsonObject
+            Files.write(resourceDirectory.resolve(JsonLdContextCache.fileNameFor(url)), response.body())
+            response.body().size
+        }
+        println("$url -> ${JsonLdContextCache.fileNameFor(url)}: ${result.map { "$it bytes" }.getOrElse { "failed: $it" }}")
+    }
+}
@@ -0,0 +1,160 @@
+package vc.jsonld
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.net.URI
+import java.net.http.HttpClient
+import java.net.http.HttpRequest
+import java.net.http.HttpResponse
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardCopyOption
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Cache for the JSON-LD `@context` documents referenced by credentials, e.g.
+ * `https://www.w3.org/ns/credentials/examples/v2` or the OpenBadge v3 context.
+ *
+ * Contexts are looked up in memory, then in the documents bundled on the classpath
+ * (`/jsonld/`, see `BundleContexts.kt`), then in [cacheDirectory], and only then fetched remotely.
+ * Every document is parsed exactly once and kept in memory afterwards, and so is the fact that a context
+ * is not available locally, until a fetch succeeds. A failed fetch is remembered for [failureTtl]: until then
+ * lookups of that context fail (or miss) without another remote request. In [offline] mode remote fetches are
+ * never attempted and a missing context is an error.
+ */
+class JsonLdContextCache(
+    private val cacheDirectory: Path = DEFAULT_CACHE_DIRECTORY,
+    private val offline: Boolean = false,
+    private val failureTtl: Duration = Duration.ofMinutes(5),
+    private val httpClient: HttpClient = HttpClient.newBuilder()
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .connectTimeout(Duration.ofSeconds(5))
+        .build(),
+) {
+
+    private val parsed = ConcurrentHashMap<String, JsonObject>()
+    private val fetching = ConcurrentHashMap<String, CompletableFuture<JsonObject>>()
+    private val notLocal = ConcurrentHashMap.newKeySet<String>()
+
+    private class FetchFailure(val retryAtNanos: Long, val error: Throwable)
+
+    private val failures = ConcurrentHashMap<String, FetchFailure>()
+
+    /**
+     * Loads all bundled and disk-cached [WELL_KNOWN_CONTEXTS] into memory. Returns the URLs that are not available locally.
+     */
+    fun preload(urls: Collection<String> = WELL_KNOWN_CONTEXTS): List<String> =
+        urls.filter { resolveLocal(it) == null }
+
+    /**
+     * Returns the context for [url], fetching (and caching) it remotely if it is not available locally.
+     */
+    fun resolve(url: String): JsonObject =
+        resolveLocal(url) ?: run {
+            check(!offline) { "JSON-LD context $url is not cached and the context cache is in offline mode" }
+            fetchAsync(url).join()
+        }
+
+    /**
+     * Non-blocking lookup for verification paths: returns the context only if it is available locally.
+     * A miss schedules a background fetch (unless [offline]), so later calls can be served from the cache.
+     */
+    fun resolveCached(url: String): JsonObject? =
+        resolveLocal(url) ?: run {
+            if (!offline) fetchAsync(url)
+            null
+        }
+
+    /**
+     * Resolves every context referenced by the `@context` member of [credential], without blocking on remote fetches.
+     * Returns the context URLs that are not available locally.
+     */
+    fun missingContexts(credential: JsonObject): List<String> =
+        contextUrls(credential).filter { resolveCached(it) == null }
+
+    private fun resolveLocal(url: String): JsonObject? {
+        parsed[url]?.let { return it }
+        if (url in notLocal) return null
+
+        val text = javaClass.getResourceAsStream("/jsonld/${fileNameFor(url)}")?.use { it.readBytes().decodeToString() }
+            ?: cacheDirectory.resolve(fileNameFor(url)).takeIf { Files.isRegularFile(it) }?.let { Files.readString(it) }
+            ?: run {
+                notLocal.add(url)
+                return null
+            }
+
+        return parsed.computeIfAbsent(url) { Json.parseToJsonElement(text).jsonObject }
+    }
+
+    private fun fetchAsync(url: String): CompletableFuture<JsonObject> {
+        failures[url]?.let { failure ->
+            if (System.nanoTime() - failure.retryAtNanos < 0) return CompletableFuture.failedFuture(failure.error)
+            failures.remove(url, failure)
+        }
+        fetching[url]?.let { return it }
+        val future = CompletableFuture<JsonObject>()
+        fetching.putIfAbsent(url, future)?.let { return it }
+
+        val request = HttpRequest.newBuilder(URI.create(url))
+            .header("Accept", "application/ld+json, application/json")
+            .timeout(Duration.ofSeconds(10))
+            .GET()
+            .build()
+        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            .thenApply { response ->
+                check(response.statusCode() in 200..299) { "Fetching JSON-LD context $url failed with HTTP ${response.statusCode()}" }
+                val context = Json.parseToJsonElement(response.body()).jsonObject
+                store(url, response.body())
+                (parsed.putIfAbsent(url, context) ?: context).also { notLocal.remove(url) }
+            }
+            .whenComplete { context, error ->
+                if (error != null) failures[url] = FetchFailure(System.nanoTime() + failureTtl.toNanos(), error)
+                fetching.remove(url)
+                if (error != null) future.completeExceptionally(error) else future.complete(context)
+            }
+        return future
+    }
+
+    private fun store(url: String, body: String) {
+        Files.createDirectories(cacheDirectory)
+        val target = cacheDirectory.resolve(fileNameFor(url))
+        val temp = Files.createTempFile(cacheDirectory, fileNameFor(url), ".tmp")
+        Files.writeString(temp, body)
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    }
+
+    companion object {
+        val DEFAULT_CACHE_DIRECTORY: Path = Path.of(System.getProperty("user.home"), ".cache", "waltid-examples", "jsonld")
+
+        val WELL_KNOWN_CONTEXTS = listOf(
+            "https://www.w3.org/2018/credentials/v1",
+            "https://www.w3.org/ns/credentials/v2",
+            "https://www.w3.org/ns/credentials/examples/v2",
+            "https://purl.imsglobal.org/spec/ob/v3p0/context-3.0.2.json",
+            "https://w3id.org/vc/status-list/2021/v1",
+            "https://w3id.org/security/suites/jws-2020/v1",
+            "https://w3id.org/security/suites/ed25519-2020/v1",
+            "https://www.w3.org/ns/did/v1",
+        )
+
+        /**
+         * File name used for [url] in the bundled resources and the disk cache,
+         * e.g. `www.w3.org_2018_credentials_v1.jsonld`.
+         */
+        fun fileNameFor(url: String): String =
+            url.substringAfter("://").replace(Regex("[^A-Za-z0-9.-]"), "_").removeSuffix(".json") + ".jsonld"
+
+        fun contextUrls(credential: JsonObject): List<String> =
+            when (val context: JsonElement? = credential["@context"]) {
+                is JsonPrimitive -> listOf(context.content)
+                is JsonArray -> context.filterIsInstance<JsonPrimitive>().map { it.content }
+                else -> emptyList()
+            }
+    }
+}
@@ -0,0 +1,26 @@
+package vc.jsonld
+
+import id.walt.policies.CredentialWrapperValidatorPolicy
+import kotlinx.serialization.json.JsonObject
+
+/**
+ * Checks that every `@context` of the credential is available from the [JsonLdContextCache] without a remote fetch.
+ *
+ * Uses [JsonLdContextCache.resolveCached] only, so verification never waits for the network: a context that is not
+ * cached fails the policy (and, unless the cache is offline, is fetched in the background for later verifications).
+ */
+class JsonLdContextPolicy(private val cache: JsonLdContextCache = JsonLdContextCache()) : CredentialWrapperValidatorPolicy() {
+    override val name = "json-ld-contexts"
+    override val description = "Checks that all JSON-LD contexts of the credential are available locally."
+
+    override suspend fun verify(data: JsonObject, args: Any?, context: Map<String, Any>): Result<Any> {
+        val credential = data["vc"] as? JsonObject ?: data
+        val contexts = JsonLdContextCache.contextUrls(credential)
+        val missing = contexts.filter { cache.resolveCached(it) == null }
+        return if (missing.isEmpty()) {
+            Result.success(contexts)
+        } else {
+            Result.failure(IllegalStateException("JSON-LD contexts not available locally: $missing"))
+        }
+    }
+}
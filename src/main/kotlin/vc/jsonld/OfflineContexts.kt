@@ -0,0 +1,49 @@
+package vc.jsonld
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.did.dids.DidService
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.policies.JwtSignaturePolicy
+import id.walt.w3c.CredentialBuilder
+import id.walt.w3c.CredentialBuilderType
+
+suspend fun main() {
+    resolveContextsOffline()
+}
+
+suspend fun resolveContextsOffline() {
+    DidService.minimalInit()
+
+    val issuerKey = JWKKey.generate(KeyType.Ed25519)
+    val issuerDid = DidService.registerByKey("key", issuerKey).did
+    val vc = CredentialBuilder(CredentialBuilderType.W3CV2CredentialBuilder).apply {
+        addContext("https://www.w3.org/ns/credentials/examples/v2")
+        addType("MyCustomCredential")
+        randomCredentialSubjectUUID()
+        this.issuerDid = issuerDid
+        subjectDid = "did:key:xyz"
+        validFromNow()
+    }.buildW3C()
+
+    // strict offline mode: only bundled and disk-cached contexts are used, nothing is ever fetched
+    val cache = JsonLdContextCache(offline = true)
+    val unavailable = cache.preload()
+    println("Preloaded well-known contexts, not available offline: $unavailable")
+
+    val contexts = JsonLdContextCache.contextUrls(vc.toJsonObject())
+    println("Contexts referenced by the credential: $contexts")
+    contexts.forEach { url ->
+        val context = cache.resolveCached(url)
+        println("$url -> ${if (context != null) "${context.size} top-level members (cached)" else "not cached"}")
+    }
+    println("Missing contexts: ${cache.missingContexts(vc.toJsonObject())}")
+
+    // verification only consults the cache, it never blocks on a context fetch
+    val signed = vc.signJws(issuerKey = issuerKey, issuerId = issuerDid, issuerKid = issuerKey.getKeyId(), subjectDid = "did:key:xyz")
+    val policies = listOf(PolicyRequest(JwtSignaturePolicy()), PolicyRequest(JsonLdContextPolicy(cache)))
+    Verifier.verifyCredential(signed, policies).forEach { verification ->
+        println("[${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+}
@@ -0,0 +1,94 @@
+package vc.jwt
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.util.Base64
+import kotlin.time.measureTime
+
+suspend fun main() {
+    readClaimsLazily()
+}
+
+suspend fun readClaimsLazily() {
+    val jwt = largeOpenBadgeJwt(evidenceCount = 200)
+    println("OpenBadge JWT with 200 evidence entries: ${jwt.length} characters")
+
+    val view = LazyJwtCredential.parse(jwt)
+    println("iss: ${view.issuer}")
+    println("exp: ${view.expiresAt}")
+    println("vc.type: ${view.types}")
+    println("vc.credentialSubject.id: ${view.subjectId}")
+    println("vc.credentialSubject.achievement.name: ${view.string("vc.credentialSubject.achievement.name")}")
+
+    val full = measureTime {
+        repeat(1_000) {
+            val payload = Json.parseToJsonElement(Base64.getUrlDecoder().decode(jwt.split('.')[1]).decodeToString()).jsonObject
+            val vc = payload.getValue("vc").jsonObject
+            listOf(payload["iss"], payload["exp"], vc["type"], vc.getValue("credentialSubject").jsonObject["id"])
+        }
+    }
+    val lazy = measureTime {
+        repeat(1_000) {
+            LazyJwtCredential.parse(jwt).run { listOf(issuer, expiresAt, types, subjectId) }
+        }
+    }
+    println("1000 x 4 claims: full JSON tree $full, lazy view $lazy")
+}
+
+/**
+ * Signed OpenBadge 3.0 JWT credential with [evidenceCount] evidence entries and an embedded badge image, the kind of
+ * credential whose payload is mostly data that verification policies never look at.
+ */
+suspend fun largeOpenBadgeJwt(evidenceCount: Int): String {
+    val key = JWKKey.generate(KeyType.Ed25519)
+    val issuer = "did:web:badges.walt-test.cloud"
+    val image = "data:image/png;base64," + Base64.getEncoder().encodeToString(ByteArray(16 * 1024) { (it * 31).toByte() })
+    val vc = JsonObject(
+        mapOf(
+            "@context" to JsonArray(listOf(JsonPrimitive("https://www.w3.org/2018/credentials/v1"), JsonPrimitive("https://purl.imsglobal.org/spec/ob/v3p0/context-3.0.2.json"))),
+            "type" to JsonArray(listOf(JsonPrimitive("VerifiableCredential"), JsonPrimitive("OpenBadgeCredential"))),
+            "id" to JsonPrimitive("urn:uuid:4177e048-9a4a-474e-9dc6-aed4e61a6439"),
+            "name" to JsonPrimitive("JFF x vc-edu PlugFest 3 Interoperability"),
+            "issuer" to JsonObject(mapOf("id" to JsonPrimitive(issuer), "type" to JsonPrimitive("Profile"), "image" to JsonPrimitive(image))),
+            "issuanceDate" to JsonPrimitive("2023-08-02T08:03:13Z"),
+            "credentialSubject" to JsonObject(
+                mapOf(
+                    "type" to JsonArray(listOf(JsonPrimitive("AchievementSubject"))),
+                    "id" to JsonPrimitive("did:key:z6MkjoRhq1jSNJdLiruSXrFFxagqrztZaXHqHGUTKJbcNywp"),
+                    "achievement" to JsonObject(
+                        mapOf(
+                            "id" to JsonPrimitive("urn:uuid:ac254bd5-8fad-4bb1-9d29-efd938536926"),
+                            "type" to JsonArray(listOf(JsonPrimitive("Achievement"))),
+                            "name" to JsonPrimitive("JFF x vc-edu PlugFest 3 Interoperability"),
+                            "image" to JsonObject(mapOf("id" to JsonPrimitive(image), "type" to JsonPrimitive("Image"))),
+                        )
+                    ),
+                )
+            ),
+            "evidence" to JsonArray(List(evidenceCount) { i ->
+                JsonObject(
+                    mapOf(
+                        "id" to JsonPrimitive("https://badges.walt-test.cloud/evidence/$i"),
+                        "type" to JsonArray(listOf(JsonPrimitive("Evidence"))),
+                        "narrative" to JsonPrimitive("Demonstrated interoperability in test run $i: received a presentation request, selected two credentials and returned the presentation."),
+                    )
+                )
+            }),
+        )
+    )
+    val payload = JsonObject(
+        mapOf(
+            "iss" to JsonPrimitive(issuer),
+            "sub" to vc.getValue("credentialSubject").jsonObject.getValue("id"),
+            "nbf" to JsonPrimitive(1690963393),
+            "exp" to JsonPrimitive(2006582593),
+            "vc" to vc,
+        )
+    )
+    return key.signJws(payload.toString().encodeToByteArray())
+}
@@ -0,0 +1,235 @@
+package vc.jwt
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.jsonObject
+import kotlinx.serialization.json.jsonPrimitive
+import java.util.Base64
+
+/**
+ * Read-only view of the payload of a JWT credential that doesn't build a JSON tree.
+ *
+ * The payload is base64url-decoded once. The first claim access indexes the top-level members (name -> byte range)
+ * in one pass, nested paths such as `vc.credentialSubject.id` are found by scanning only the enclosing object and
+ * are remembered as well. Values are decoded from their byte range when they are read, [element] parses just the
+ * requested subtree. A policy that reads `iss`, `exp`, `vc.type` and the subject of a large credential never
+ * allocates the (often much larger) rest of it.
+ *
+ * The payload is not validated beyond what is scanned, it is meant for credentials whose signature is verified.
+ * Instances are not thread-safe.
+ */
+class LazyJwtCredential private constructor(private val bytes: ByteArray) {
+
+    private var topLevel: HashMap<String, Long>? = null
+    private val paths = HashMap<String, Long>()
+
+    val issuer: String?
+        get() = string("iss") ?: string("vc.issuer") ?: string("vc.issuer.id")
+
+    val subjectId: String?
+        get() = string("vc.credentialSubject.id") ?: string("sub")
+
+    val expiresAt: Long? get() = long("exp")
+
+    val notBefore: Long? get() = long("nbf")
+
+    val types: List<String> get() = strings("vc.type")
+
+    fun contains(path: String): Boolean = range(path) != ABSENT
+
+    /** The string at [path] (dot-separated member names), null if absent or not a string. */
+    fun string(path: String): String? {
+        val range = range(path)
+        if (range == ABSENT || bytes[start(range)] != QUOTE) return null
+        return decodeString(start(range), end(range))
+    }
+
+    /** The integer at [path], null if absent or not a number. */
+    fun long(path: String): Long? {
+        val range = range(path)
+        if (range == ABSENT) return null
+        val first = bytes[start(range)]
+        if (first != MINUS && first !in DIGIT_0..DIGIT_9) return null
+        val text = String(bytes, start(range), end(range) - start(range), Charsets.US_ASCII)
+        return text.toLongOrNull() ?: text.toDoubleOrNull()?.toLong()
+    }
+
+    /** The strings of the array at [path], or the single string at [path]. */
+    fun strings(path: String): List<String> {
+        val range = range(path)
+        if (range == ABSENT) return emptyList()
+        return when (bytes[start(range)]) {
+            QUOTE -> listOf(decodeString(start(range), end(range)))
+            OPEN_ARRAY -> {
+                val values = ArrayList<String>(4)
+                var position = skipWhitespace(start(range) + 1)
+                while (bytes[position] != CLOSE_ARRAY) {
+                    val valueEnd = skipValue(position)
+                    if (bytes[position] == QUOTE) values += decodeString(position, valueEnd)
+                    position = skipWhitespace(valueEnd)
+                    if (bytes[position] == COMMA) position = skipWhitespace(position + 1)
+                }
+                values
+            }
+            else -> emptyList()
+        }
+    }
+
+    /** The subtree at [path], parsed on demand. */
+    fun element(path: String): JsonElement? {
+        val range = range(path)
+        if (range == ABSENT) return null
+        return Json.parseToJsonElement(String(bytes, start(range), end(range) - start(range), Charsets.UTF_8))
+    }
+
+    /** The whole payload as JSON tree, for code that needs it after all. */
+    fun toJsonObject(): JsonObject = Json.parseToJsonElement(bytes.decodeToString()).jsonObject
+
+    private fun range(path: String): Long {
+        paths[path]?.let { return it }
+        val dot = path.lastIndexOf('.')
+        val range = if (dot < 0) {
+            topLevelIndex()[path] ?: ABSENT
+        } else {
+            val parent = range(path.substring(0, dot))
+            if (parent == ABSENT || bytes[start(parent)] != OPEN_OBJECT) ABSENT
+            else findMember(start(parent), path.substring(dot + 1).encodeToByteArray())
+        }
+        paths[path] = range
+        return range
+    }
+
+    private fun topLevelIndex(): HashMap<String, Long> = topLevel ?: HashMap<String, Long>(32).also { index ->
+        forEachMember(skipWhitespace(0)) { keyStart, keyEnd, valueStart, valueEnd ->
+            index[decodeString(keyStart, keyEnd)] = pack(valueStart, valueEnd)
+            false
+        }
+        topLevel = index
+    }
+
+    private fun findMember(objectStart: Int, name: ByteArray): Long {
+        var found = ABSENT
+        forEachMember(objectStart) { keyStart, keyEnd, valueStart, valueEnd ->
+            if (keyEquals(keyStart, keyEnd, name)) {
+                found = pack(valueStart, valueEnd)
+                true
+            } else false
+        }
+        return found
+    }
+
+    /**
+     * Calls [member] with the ranges of key (including quotes) and value of every member of the object at
+     * [objectStart], until it returns true.
+     */
+    private inline fun forEachMember(objectStart: Int, member: (Int, Int, Int, Int) -> Boolean) {
+        require(bytes[objectStart] == OPEN_OBJECT) { "Expected a JSON object at offset $objectStart" }
+        var position = skipWhitespace(objectStart + 1)
+        while (bytes[position] != CLOSE_OBJECT) {
+            val keyEnd = skipString(position)
+            val colon = skipWhitespace(keyEnd)
+            require(bytes[colon] == COLON) { "Expected ':' at offset $colon" }
+            val valueStart = skipWhitespace(colon + 1)
+            val valueEnd = skipValue(valueStart)
+            if (member(position, keyEnd, valueStart, valueEnd)) return
+            position = skipWhitespace(valueEnd)
+            if (bytes[position] == COMMA) position = skipWhitespace(position + 1)
+        }
+    }
+
+    private fun keyEquals(keyStart: Int, keyEnd: Int, name: ByteArray): Boolean {
+        val length = keyEnd - keyStart - 2
+        if (length == name.size) {
+            for (i in name.indices) if (bytes[keyStart + 1 + i] != name[i]) return false
+            return true
+        }
+        // escaped member names are rare, compare them decoded
+        return length > name.size && BACKSLASH in bytes.copyOfRange(keyStart, keyEnd) &&
+                decodeString(keyStart, keyEnd) == name.decodeToString()
+    }
+
+    private fun decodeString(start: Int, end: Int): String {
+        for (i in start + 1 until end - 1) {
+            if (bytes[i] == BACKSLASH) {
+                return Json.parseToJsonElement(String(bytes, start, end - start, Charsets.UTF_8)).jsonPrimitive.content
+            }
+        }
+        return String(bytes, start + 1, end - start - 2, Charsets.UTF_8)
+    }
+
+    private fun skipWhitespace(from: Int): Int {
+        var i = from
+        while (i < bytes.size && (bytes[i] == SPACE || bytes[i] == NEWLINE || bytes[i] == RETURN || bytes[i] == TAB)) i++
+        return i
+    }
+
+    private fun skipString(from: Int): Int {
+        require(bytes[from] == QUOTE) { "Expected a string at offset $from" }
+        var i = from + 1
+        while (bytes[i] != QUOTE) i += if (bytes[i] == BACKSLASH) 2 else 1
+        return i + 1
+    }
+
+    private fun skipValue(from: Int): Int {
+        when (bytes[from]) {
+            QUOTE -> return skipString(from)
+            OPEN_OBJECT, OPEN_ARRAY -> {
+                var depth = 0
+                var i = from
+                while (true) {
+                    when (bytes[i]) {
+                        QUOTE -> {
+                            i = skipString(i)
+                            continue
+                        }
+                        OPEN_OBJECT, OPEN_ARRAY -> depth++
+                        CLOSE_OBJECT, CLOSE_ARRAY -> if (--depth == 0) return i + 1
+                    }
+                    i++
+                }
+            }
+            else -> {
+                var i = from
+                while (i < bytes.size && bytes[i] != COMMA && bytes[i] != CLOSE_OBJECT && bytes[i] != CLOSE_ARRAY &&
+                    bytes[i] != SPACE && bytes[i] != NEWLINE && bytes[i] != RETURN && bytes[i] != TAB
+                ) i++
+                return i
+            }
+        }
+    }
+
+    companion object {
+        private const val ABSENT = -1L
+
+        private val QUOTE = '"'.code.toByte()
+        private val BACKSLASH = '\\'.code.toByte()
+        private val OPEN_OBJECT = '{'.code.toByte()
+        private val CLOSE_OBJECT = '}'.code.toByte()
+        private val OPEN_ARRAY = '['.code.toByte()
+        private val CLOSE_ARRAY = ']'.code.toByte()
+        private val COLON = ':'.code.toByte()
+        private val COMMA = ','.code.toByte()
+        private val MINUS = '-'.code.toByte()
+        private val DIGIT_0 = '0'.code.toByte()
+        private val DIGIT_9 = '9'.code.toByte()
+        private val SPACE = ' '.code.toByte()
+        private val NEWLINE = '\n'.code.toByte()
+        private val RETURN = '\r'.code.toByte()
+        private val TAB = '\t'.code.toByte()
+
+        /**
+         * View of the payload of a compact JWS, or of the issuer-signed JWT of an SD-JWT.
+         */
+        fun parse(jwt: String): LazyJwtCredential {
+            val payloadStart = jwt.indexOf('.') + 1
+            val payloadEnd = jwt.indexOf('.', payloadStart)
+            require(payloadStart > 0 && payloadEnd > payloadStart) { "Not a compact JWS: missing payload" }
+            return LazyJwtCredential(Base64.getUrlDecoder().decode(jwt.substring(payloadStart, payloadEnd)))
+        }
+
+        private fun pack(start: Int, end: Int): Long = (start.toLong() shl 32) or end.toLong()
+        private fun start(range: Long): Int = (range ushr 32).toInt()
+        private fun end(range: Long): Int = range.toInt()
+    }
+}
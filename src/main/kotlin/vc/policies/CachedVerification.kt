@@ -0,0 +1,37 @@
+package vc.policies
+
+import id.walt.did.dids.DidService
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.policies.ExpirationDatePolicy
+import id.walt.policies.policies.JwtSignaturePolicy
+import kotlin.time.measureTime
+
+suspend fun main() {
+    verifyWithResultCache()
+}
+
+suspend fun verifyWithResultCache() {
+    DidService.minimalInit()
+
+    val (_, signedJwtVc) = signSampleJwtVc()
+    println("Signed JWT VC: $signedJwtVc")
+
+    val cache = VerificationResultCache(maxEntries = 1_000)
+    val policies = listOf(
+        PolicyRequest(JwtSignaturePolicy()),
+        PolicyRequest(ExpirationDatePolicy()),
+    )
+
+    // the same holder presents the same credential in several sessions:
+    // the signature is verified once, the expiration date is checked every time
+    repeat(5) { session ->
+        val duration = measureTime {
+            cache.verifyCredential(signedJwtVc, policies).forEach { verification ->
+                println("Session $session: [${verification.request.policy.name}] -> Success=${verification.isSuccess()}")
+            }
+        }
+        println("Session $session verified in $duration")
+    }
+    val stats = cache.stats()
+    println("Cache: hits=${stats.hits}, misses=${stats.misses}, evictions=${stats.evictions}, size=${stats.size}, hit rate=${stats.hitRate}")
+}
@@ -0,0 +1,71 @@
+package vc.policies
+
+import id.walt.policies.models.PolicyRequest
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import vc.jwt.LazyJwtCredential
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Precompiled index over `specificCredentialPolicies` (credential type -> policies).
+ *
+ * The merged policy list for a credential's `type` array is computed once per distinct set of types and
+ * then served with a single hash lookup, independent of the number of type-specific rule sets.
+ */
+class CredentialPolicyIndex(
+    specificCredentialPolicies: Map<String, List<PolicyRequest>>,
+    private val maxCachedTypeSets: Int = 10_000,
+) {
+
+    private val policiesByType: Map<String, List<PolicyRequest>> =
+        specificCredentialPolicies.mapValues { (_, policies) -> policies.toList() }
+
+    private val mergedByTypeSet = ConcurrentHashMap<List<String>, List<PolicyRequest>>()
+
+    val size: Int get() = policiesByType.size
+
+    /**
+     * All policies that apply to a credential with the given [types], merged in type name order.
+     */
+    fun policiesFor(types: List<String>): List<PolicyRequest> {
+        val key = types.distinct().sorted()
+        mergedByTypeSet[key]?.let { return it }
+
+        val merged = key.flatMap { policiesByType[it].orEmpty() }
+        // credentials are expected to use a small number of type combinations; never grow without bound
+        return if (mergedByTypeSet.size < maxCachedTypeSets) mergedByTypeSet.putIfAbsent(key, merged) ?: merged else merged
+    }
+
+    fun policiesFor(credential: JsonObject): List<PolicyRequest> = policiesFor(credentialTypes(credential))
+
+    /**
+     * Policies for a JWT or SD-JWT credential. Only the `type` array is read from the payload, without parsing the
+     * rest of the credential.
+     */
+    fun policiesForJwt(jwt: String): List<PolicyRequest> = policiesFor(jwtCredentialTypes(jwt))
+
+    /**
+     * Reduces the index to the rule sets that apply to the credentials in [signedVP], so that
+     * `Verifier.verifyPresentation` only needs to consider those instead of every registered type.
+     */
+    fun forPresentation(signedVP: String): Map<String, List<PolicyRequest>> {
+        val presentation = decodeJwtPayload(signedVP)
+        val credentials = (presentation["vp"] as? JsonObject)?.get("verifiableCredential") as? JsonArray ?: return emptyMap()
+
+        val types = credentials.flatMapTo(HashSet()) { credential ->
+            when (credential) {
+                is JsonPrimitive -> jwtCredentialTypes(credential.content)
+                is JsonObject -> credentialTypes(credential)
+                else -> emptyList()
+            }
+        }
+        return types.mapNotNull { type -> policiesByType[type]?.let { type to it } }.toMap()
+    }
+
+    // same lookup as credentialTypes: `vc.type` of a JWT VC, the top-level `type` of other payloads
+    private fun jwtCredentialTypes(jwt: String): List<String> {
+        val credential = LazyJwtCredential.parse(jwt)
+        return if (credential.contains("vc")) credential.types else credential.strings("type")
+    }
+}
@@ -0,0 +1,118 @@
+package vc.policies
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import org.slf4j.LoggerFactory
+import java.io.IOException
+import java.io.UncheckedIOException
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.attribute.FileTime
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicReference
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Immutable set of trusted issuer DIDs with a Bloom filter in front of the hash set,
+ * so that untrusted issuers are usually rejected without touching the set at all.
+ */
+class IssuerTrustSet(issuers: Collection<String>, bitsPerIssuer: Int = 10) {
+
+    private val issuers: Set<String> = HashSet(issuers)
+    private val bits = LongArray(maxOf(1, issuers.size * bitsPerIssuer / 64 + 1))
+
+    init {
+        issuers.forEach { issuer -> forEachBit(issuer) { word, mask -> bits[word] = bits[word] or mask } }
+    }
+
+    val size: Int get() = issuers.size
+
+    operator fun contains(issuer: String): Boolean {
+        forEachBit(issuer) { word, mask -> if (bits[word] and mask == 0L) return false }
+        return issuer in issuers
+    }
+
+    private inline fun forEachBit(issuer: String, action: (word: Int, mask: Long) -> Unit) {
+        val h1 = mix(issuer.hashCode().toLong())
+        val h2 = mix(h1) or 1L
+        val totalBits = bits.size * 64L
+        for (i in 0 until HASH_FUNCTIONS) {
+            val bit = Math.floorMod(h1 + i * h2, totalBits)
+            action((bit ushr 6).toInt(), 1L shl (bit and 63).toInt())
+        }
+    }
+
+    private companion object {
+        const val HASH_FUNCTIONS = 7
+
+        // murmur3 64-bit finalizer
+        fun mix(value: Long): Long {
+            var h = value
+            h = (h xor (h ushr 33)) * -0xae502812aa7333L
+            h = (h xor (h ushr 33)) * -0x3b314601e57a13adL
+            return h xor (h ushr 33)
+        }
+    }
+}
+
+/**
+ * Named issuer trust lists that policies can reference by name instead of inlining DIDs in their arguments.
+ *
+ * A reload builds the new [IssuerTrustSet] first and then swaps it in atomically,
+ * verifications running concurrently keep using the previous set and never wait.
+ */
+object IssuerTrustRegistry {
+
+    private val log = LoggerFactory.getLogger(IssuerTrustRegistry::class.java)
+
+    private val registries = ConcurrentHashMap<String, AtomicReference<IssuerTrustSet>>()
+
+    fun register(name: String, issuers: Collection<String>) {
+        val trustSet = IssuerTrustSet(issuers)
+        registries.computeIfAbsent(name) { AtomicReference(trustSet) }.set(trustSet)
+    }
+
+    /**
+     * Loads a trust list with one issuer DID per line, blank lines and lines starting with `#` are ignored.
+     */
+    fun registerFromFile(name: String, file: Path) {
+        val issuers = Files.lines(file).use { lines ->
+            lines.map { it.trim() }.filter { it.isNotEmpty() && !it.startsWith("#") }.toList()
+        }
+        register(name, issuers)
+    }
+
+    /**
+     * Re-reads [file] into the registry [name] whenever its modification time changes.
+     *
+     * A file that is missing or unreadable for a moment (e.g. while it is replaced) is logged and retried on the
+     * next tick, the registry keeps serving the previously loaded set meanwhile.
+     */
+    fun watchFile(scope: CoroutineScope, name: String, file: Path, interval: Duration = 30.seconds): Job = scope.launch {
+        var lastModified: FileTime? = null
+        while (isActive) {
+            try {
+                val modified = Files.getLastModifiedTime(file)
+                if (modified != lastModified) {
+                    registerFromFile(name, file)
+                    lastModified = modified
+                }
+            } catch (e: IOException) {
+                log.warn("Could not reload trust registry {} from {}, keeping the previous set: {}", name, file, e.toString())
+            } catch (e: UncheckedIOException) {
+                log.warn("Could not reload trust registry {} from {}, keeping the previous set: {}", name, file, e.toString())
+            }
+            delay(interval)
+        }
+    }
+
+    operator fun get(name: String): IssuerTrustSet? = registries[name]?.get()
+
+    fun remove(name: String) {
+        registries.remove(name)
+    }
+}
@@ -0,0 +1,27 @@
+package vc.policies
+
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.util.Base64
+
+/**
+ * Decodes the payload of a compact JWS (or the issuer-signed JWT of an SD-JWT) without verifying it.
+ */
+internal fun decodeJwtPayload(jwt: String): JsonObject {
+    val payload = jwt.substringBefore('~').split('.').getOrNull(1)
+        ?: throw IllegalArgumentException("Not a compact JWS: missing payload")
+    return Json.parseToJsonElement(Base64.getUrlDecoder().decode(payload).decodeToString()).jsonObject
+}
+
+/**
+ * The `type` array of a credential, either a JWT payload (`vc.type`) or a plain credential (`type`).
+ */
+internal fun credentialTypes(credential: JsonObject): List<String> =
+    when (val type = (credential["vc"] as? JsonObject ?: credential)["type"]) {
+        is JsonPrimitive -> listOf(type.content)
+        is JsonArray -> type.filterIsInstance<JsonPrimitive>().map { it.content }
+        else -> emptyList()
+    }
@@ -0,0 +1,76 @@
+package vc.policies
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.crypto.utils.JsonUtils.toJsonElement
+import id.walt.did.dids.DidService
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.policies.AllowedIssuerPolicy
+import id.walt.policies.policies.ExpirationDatePolicy
+import id.walt.policies.policies.JwtSignaturePolicy
+import id.walt.w3c.vc.vcs.W3CVC
+
+suspend fun main() {
+    verifyWithPolicyPlanner()
+}
+
+internal suspend fun signSampleJwtVc(types: List<String> = listOf("VerifiableCredential", "OpenBadgeCredential")): Pair<String, String> {
+    val issuerPrivateKey = JWKKey.generate(KeyType.Ed25519)
+    val issuerDid = DidService.registerByKey("key", issuerPrivateKey).did
+    val holderDid = DidService.registerByKey("key", JWKKey.generate(KeyType.Ed25519)).did
+
+    val vc = W3CVC.build(
+        context = listOf(
+            "https://www.w3.org/2018/credentials/v1",
+            "https://purl.imsglobal.org/spec/ob/v3p0/context-3.0.2.json"
+        ),
+        type = types,
+
+        "id" to "urn:uuid:4177e048-9a4a-474e-9dc6-aed4e61a6439",
+        "name" to "JFF x vc-edu PlugFest 3 Interoperability",
+        "issuer" to issuerDid,
+        "issuanceDate" to "2023-08-02T08:03:13Z",
+        "credentialSubject" to mapOf(
+            "type" to listOf("AchievementSubject"),
+            "id" to holderDid,
+        )
+    )
+    val signed = vc.signJws(
+        issuerKey = issuerPrivateKey,
+        issuerId = issuerDid,
+        issuerKid = issuerPrivateKey.getKeyId(),
+        subjectDid = holderDid,
+    )
+    return issuerDid to signed
+}
+
+suspend fun verifyWithPolicyPlanner() {
+    DidService.minimalInit()
+
+    val (issuerDid, signedJwtVc) = signSampleJwtVc()
+    println("Signed JWT VC: $signedJwtVc")
+
+    val planner = PolicyExecutionPlanner()
+    val policies = listOf(
+        PolicyRequest(JwtSignaturePolicy()),
+        PolicyRequest(ExpirationDatePolicy()),
+        PolicyRequest(AllowedIssuerPolicy(), issuerDid.toJsonElement()),
+    )
+    println("Declared order: ${policies.map { it.policy.name }}")
+    println("Planned order: ${planner.plan(policies).map { "${it.policy.name} (${planner.costOf(it)})" }}")
+
+    val report = planner.verifyCredential(signedJwtVc, policies, fullReport = true)
+    report.results.forEach { verification ->
+        println("[${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+    println("Full report: success=${report.isSuccess()}, took ${report.elapsed}")
+
+    // an issuer that is not allowed fails the cheap claim check, the signature is never verified
+    val untrustedIssuer = listOf(
+        PolicyRequest(JwtSignaturePolicy()),
+        PolicyRequest(AllowedIssuerPolicy(), "did:key:z6MkuNxBNHCy6sVmSDvomPhzVzNj1UqAb68YSLhYGs4svvDA".toJsonElement()),
+    )
+    val shortCircuited = planner.verifyCredential(signedJwtVc, untrustedIssuer)
+    println("Short-circuited: success=${shortCircuited.isSuccess()}, ran=${shortCircuited.results.map { it.request.policy.name }}, skipped=${shortCircuited.skipped.map { it.policy.name }}")
+    println("Took ${shortCircuited.elapsed}, estimated time saved: ${shortCircuited.estimatedTimeSaved}")
+}
@@ -0,0 +1,129 @@
+package vc.policies
+
+import id.walt.policies.CredentialDataValidatorPolicy
+import id.walt.policies.CredentialWrapperValidatorPolicy
+import id.walt.policies.JwtVerificationPolicy
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.models.PolicyResult
+import id.walt.sdjwt.SDJwt
+import kotlinx.coroutines.CancellationException
+import kotlinx.serialization.json.JsonObject
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.nanoseconds
+
+/**
+ * Cost classes of verification policies, cheapest first.
+ */
+enum class PolicyCost {
+    /** Checks on the decoded claims only, e.g. expiration or allowed issuers. */
+    CLAIMS,
+
+    /** Cryptographic signature verification (including local DID resolution). */
+    SIGNATURE,
+
+    /** Anything that may need network access, e.g. status lists or webhooks. Unknown policies also end up here. */
+    NETWORK,
+}
+
+data class PlannedVerificationResult(
+    val results: List<PolicyResult>,
+    val skipped: List<PolicyRequest>,
+    val elapsed: Duration,
+    /** Estimated runtime of the [skipped] policies, based on their previously measured average runtime. */
+    val estimatedTimeSaved: Duration,
+) {
+    fun isSuccess() = skipped.isEmpty() && results.all { it.isSuccess() }
+}
+
+/**
+ * Runs credential policies cheapest first and stops at the first failing policy, unless a full report is requested.
+ *
+ * The credential is decoded once per verification and every policy is called directly with the input it expects
+ * (the compact JWT, the JWT payload or the credential in it), so the recorded runtimes are those of the policies.
+ */
+class PolicyExecutionPlanner(
+    private val costOverrides: Map<String, PolicyCost> = emptyMap(),
+) {
+
+    private val averageRuntimeNanos = ConcurrentHashMap<String, AtomicLong>()
+
+    fun costOf(request: PolicyRequest): PolicyCost =
+        costOverrides[request.policy.name] ?: DEFAULT_COSTS[request.policy.name] ?: PolicyCost.NETWORK
+
+    /**
+     * Orders [policies] by cost. Policies of the same cost keep their declaration order.
+     */
+    fun plan(policies: List<PolicyRequest>): List<PolicyRequest> = policies.sortedBy { costOf(it) }
+
+    suspend fun verifyCredential(
+        credential: String,
+        policies: List<PolicyRequest>,
+        context: Map<String, Any> = emptyMap(),
+        fullReport: Boolean = false,
+    ): PlannedVerificationResult {
+        val plan = plan(policies)
+        val results = ArrayList<PolicyResult>(plan.size)
+        val start = System.nanoTime()
+        val payload = if ('~' in credential) SDJwt.parse(credential).fullPayload else decodeJwtPayload(credential)
+
+        for ((index, request) in plan.withIndex()) {
+            val policyStart = System.nanoTime()
+            val result = run(request, credential, payload, context)
+            record(request, System.nanoTime() - policyStart)
+            results += result
+
+            if (!result.isSuccess() && !fullReport) {
+                val skipped = plan.subList(index + 1, plan.size)
+                return PlannedVerificationResult(
+                    results = results,
+                    skipped = skipped,
+                    elapsed = (System.nanoTime() - start).nanoseconds,
+                    estimatedTimeSaved = skipped.sumOf { averageRuntimeNanos[it.policy.name]?.get() ?: 0L }.nanoseconds,
+                )
+            }
+        }
+        return PlannedVerificationResult(results, emptyList(), (System.nanoTime() - start).nanoseconds, Duration.ZERO)
+    }
+
+    private suspend fun run(request: PolicyRequest, credential: String, payload: JsonObject, context: Map<String, Any>): PolicyResult =
+        when (val policy = request.policy) {
+            is JwtVerificationPolicy -> PolicyResult(request, runPolicy { policy.verify(credential, request.args, context) })
+            is CredentialWrapperValidatorPolicy -> PolicyResult(request, runPolicy { policy.verify(payload, request.args, context) })
+            is CredentialDataValidatorPolicy ->
+                PolicyResult(request, runPolicy { policy.verify(payload["vc"] as? JsonObject ?: payload, request.args, context) })
+            // other policy kinds are left to the Verifier, which decodes the credential itself
+            else -> Verifier.verifyCredential(credential, listOf(request), context).single()
+        }
+
+    private inline fun runPolicy(verify: () -> Result<Any>): Result<Any> =
+        try {
+            verify()
+        } catch (e: CancellationException) {
+            throw e
+        } catch (e: Exception) {
+            Result.failure(e)
+        }
+
+    // exponentially weighted moving average (1/8 weight per sample) of the policy runtime
+    private fun record(request: PolicyRequest, nanos: Long) {
+        val average = averageRuntimeNanos.computeIfAbsent(request.policy.name) { AtomicLong(nanos) }
+        average.updateAndGet { it + (nanos - it) / 8 }
+    }
+
+    companion object {
+        val DEFAULT_COSTS = mapOf(
+            "expired" to PolicyCost.CLAIMS,
+            "not-before" to PolicyCost.CLAIMS,
+            "allowed-issuer" to PolicyCost.CLAIMS,
+            "holder-binding" to PolicyCost.CLAIMS,
+            "schema" to PolicyCost.CLAIMS,
+            "minimum-credentials" to PolicyCost.CLAIMS,
+            "maximum-credentials" to PolicyCost.CLAIMS,
+            "signature" to PolicyCost.SIGNATURE,
+            "signature_sd-jwt-vc" to PolicyCost.SIGNATURE,
+        )
+    }
+}
@@ -0,0 +1,40 @@
+package vc.policies
+
+import id.walt.crypto.utils.JsonUtils.toJsonElement
+import id.walt.did.dids.DidService
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.policies.JwtSignaturePolicy
+import kotlin.time.measureTimedValue
+
+suspend fun main() {
+    verifyWithTrustRegistry()
+}
+
+suspend fun verifyWithTrustRegistry() {
+    DidService.minimalInit()
+
+    val (issuerDid, signedJwtVc) = signSampleJwtVc()
+    println("Signed JWT VC: $signedJwtVc")
+
+    // a trust list of ~200k issuers, loaded once into an immutable hashed set
+    val syntheticIssuers = List(200_000) { "did:web:issuer-$it.example" }
+    val (_, loadDuration) = measureTimedValue {
+        IssuerTrustRegistry.register("eu-trusted-issuers", syntheticIssuers)
+    }
+    println("Loaded ${IssuerTrustRegistry["eu-trusted-issuers"]?.size} trusted issuers in $loadDuration")
+
+    val policies = listOf(
+        PolicyRequest(TrustedIssuerPolicy(), "eu-trusted-issuers".toJsonElement()),
+        PolicyRequest(JwtSignaturePolicy()),
+    )
+    Verifier.verifyCredential(signedJwtVc, policies).forEach { verification ->
+        println("Before reload: [${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+
+    // hot reload: the new list is built first and swapped in atomically
+    IssuerTrustRegistry.register("eu-trusted-issuers", syntheticIssuers + issuerDid)
+    Verifier.verifyCredential(signedJwtVc, policies).forEach { verification ->
+        println("After reload: [${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+}
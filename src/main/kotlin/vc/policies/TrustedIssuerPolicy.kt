@@ -0,0 +1,42 @@
+package vc.policies
+
+import id.walt.policies.CredentialWrapperValidatorPolicy
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+
+/**
+ * Variant of `AllowedIssuerPolicy` for large trust lists: the policy argument is the name of a trust list in the
+ * [IssuerTrustRegistry] (e.g. `"eu-trusted-issuers".toJsonElement()`) instead of an inlined list of issuer DIDs.
+ */
+class TrustedIssuerPolicy : CredentialWrapperValidatorPolicy() {
+    override val name = "trusted-issuer"
+    override val description = "Checks that the issuer of the credential is part of the referenced trust registry."
+
+    override suspend fun verify(data: JsonObject, args: Any?, context: Map<String, Any>): Result<Any> {
+        val registryName = when (args) {
+            is JsonPrimitive -> args.content
+            is String -> args
+            else -> return Result.failure(IllegalArgumentException("Expected the name of a trust registry as policy argument, got: $args"))
+        }
+        val trustSet = IssuerTrustRegistry[registryName]
+            ?: return Result.failure(IllegalArgumentException("Unknown trust registry: $registryName"))
+        val issuer = issuerOf(data)
+            ?: return Result.failure(IllegalArgumentException("No issuer found in credential"))
+
+        return if (issuer in trustSet) {
+            Result.success(issuer)
+        } else {
+            Result.failure(IllegalArgumentException("Issuer $issuer is not part of trust registry $registryName"))
+        }
+    }
+
+    private fun issuerOf(data: JsonObject): String? {
+        (data["iss"] as? JsonPrimitive)?.let { return it.content }
+        val credential = data["vc"] as? JsonObject ?: data
+        return when (val issuer = credential["issuer"]) {
+            is JsonPrimitive -> issuer.content
+            is JsonObject -> (issuer["id"] as? JsonPrimitive)?.content
+            else -> null
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package vc.policies
+
+import id.walt.did.dids.DidService
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.policies.ExpirationDatePolicy
+import id.walt.policies.policies.JwtSignaturePolicy
+import id.walt.policies.policies.NotBeforeDatePolicy
+import kotlin.time.measureTimedValue
+
+suspend fun main() {
+    verifyWithTypeIndexedPolicies()
+}
+
+suspend fun verifyWithTypeIndexedPolicies() {
+    DidService.minimalInit()
+
+    val (_, signedJwtVc) = signSampleJwtVc()
+    println("Signed JWT VC: $signedJwtVc")
+
+    // hundreds of type-specific rule sets, only two of them apply to an OpenBadgeCredential
+    val specificCredentialPolicies = (1..500).associate { "CustomCredential$it" to listOf(PolicyRequest(NotBeforeDatePolicy())) } +
+            mapOf(
+                "OpenBadgeCredential" to listOf(PolicyRequest(ExpirationDatePolicy())),
+                "VerifiableCredential" to listOf(PolicyRequest(NotBeforeDatePolicy())),
+            )
+    val index = CredentialPolicyIndex(specificCredentialPolicies)
+    println("Indexed rule sets for ${index.size} credential types")
+
+    val (firstLookup, firstDuration) = measureTimedValue { index.policiesForJwt(signedJwtVc) }
+    val (_, cachedDuration) = measureTimedValue { index.policiesForJwt(signedJwtVc) }
+    println("Type-specific policies: ${firstLookup.map { it.policy.name }} (first lookup: $firstDuration, cached: $cachedDuration)")
+
+    val globalVcPolicies = listOf(PolicyRequest(JwtSignaturePolicy()))
+    Verifier.verifyCredential(signedJwtVc, globalVcPolicies + firstLookup).forEach { verification ->
+        println("[${verification.request.policy.name}] -> Success=${verification.isSuccess()}, Result=${verification.result}")
+    }
+}
@@ -0,0 +1,90 @@
+package vc.policies
+
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.models.PolicyResult
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.concurrent.atomic.AtomicLong
+
+data class VerificationCacheStats(val hits: Long, val misses: Long, val evictions: Long, val size: Int) {
+    val hitRate: Double get() = if (hits + misses == 0L) 0.0 else hits.toDouble() / (hits + misses)
+}
+
+/**
+ * Optional cache in front of [Verifier.verifyCredential] for credentials that are presented over and over again.
+ *
+ * Only results of time-independent policies ([cacheablePolicies], e.g. the JWT signature) are cached, keyed by the
+ * SHA-256 digest of the compact credential and the fingerprint (name and arguments) of the policy. Time-dependent
+ * policies such as `expired` or `not-before`, and failed results (which may be caused by a temporarily unreachable
+ * DID), are evaluated on every call. The cache holds at most [maxEntries] results and evicts the least recently used.
+ */
+class VerificationResultCache(
+    private val maxEntries: Int = 10_000,
+    private val cacheablePolicies: Set<String> = DEFAULT_CACHEABLE_POLICIES,
+) {
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val evictions = AtomicLong()
+
+    private val entries = object : LinkedHashMap<String, PolicyResult>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, PolicyResult>): Boolean =
+            (size > maxEntries).also { if (it) evictions.incrementAndGet() }
+    }
+
+    suspend fun verifyCredential(
+        credential: String,
+        policies: List<PolicyRequest>,
+        context: Map<String, Any> = emptyMap(),
+    ): List<PolicyResult> {
+        val digest = sha256(credential)
+        val results = arrayOfNulls<PolicyResult>(policies.size)
+        val pending = ArrayList<Int>(policies.size)
+
+        policies.forEachIndexed { index, request ->
+            if (request.policy.name in cacheablePolicies) {
+                val cached = synchronized(entries) { entries[cacheKey(digest, request)] }
+                if (cached != null) {
+                    hits.incrementAndGet()
+                    results[index] = cached
+                    return@forEachIndexed
+                }
+                misses.incrementAndGet()
+            }
+            pending += index
+        }
+
+        if (pending.isNotEmpty()) {
+            // matched by request rather than position, a result must never be cached under another policy's key
+            val fresh = Verifier.verifyCredential(credential, pending.map { policies[it] }, context).toMutableList()
+            for (index in pending) {
+                val request = policies[index]
+                val match = fresh.indexOfFirst { it.request === request }.takeIf { it >= 0 }
+                    ?: fresh.indexOfFirst { it.request == request }
+                check(match >= 0) { "Verifier returned no result for policy ${request.policy.name}" }
+                val result = fresh.removeAt(match)
+                results[index] = result
+                if (result.isSuccess() && request.policy.name in cacheablePolicies) {
+                    synchronized(entries) { entries[cacheKey(digest, request)] = result }
+                }
+            }
+        }
+        return results.map { it!! }
+    }
+
+    fun stats(): VerificationCacheStats =
+        VerificationCacheStats(hits.get(), misses.get(), evictions.get(), synchronized(entries) { entries.size })
+
+    fun clear() = synchronized(entries) { entries.clear() }
+
+    private fun cacheKey(digest: String, request: PolicyRequest) = "$digest|${request.policy.name}|${request.args}"
+
+    private fun sha256(credential: String): String =
+        Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(MessageDigest.getInstance("SHA-256").digest(credential.encodeToByteArray()))
+
+    companion object {
+        val DEFAULT_CACHEABLE_POLICIES = setOf("signature", "signature_sd-jwt-vc", "allowed-issuer")
+    }
+}
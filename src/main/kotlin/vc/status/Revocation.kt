@@ -0,0 +1,69 @@
+package vc.status
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.crypto.utils.JsonUtils.toJsonObject
+import id.walt.did.dids.DidService
+import id.walt.w3c.CredentialBuilder
+import id.walt.w3c.CredentialBuilderType
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.delay
+import java.nio.file.Files
+import kotlin.time.Duration.Companion.milliseconds
+import kotlin.time.Duration.Companion.seconds
+
+suspend fun main() {
+    issueAndRevokeWithStatusList()
+}
+
+suspend fun issueAndRevokeWithStatusList() {
+    DidService.minimalInit()
+
+    val issuerPrivateKey = JWKKey.generate(KeyType.Ed25519)
+    val issuerDid = DidService.registerByKey("key", issuerPrivateKey).did
+    println("Generated issuer DID: $issuerDid")
+
+    val listUrl = "https://university.example/credentials/status/3"
+    val directory = Files.createTempDirectory("status-lists")
+    println("Storing status lists in: $directory")
+
+    StatusListManager(
+        directory = directory,
+        issuerKey = issuerPrivateKey,
+        issuerDid = issuerDid,
+        publishInterval = 1.seconds,
+    ) { url, signedCredential ->
+        println("Published status list $url: $signedCredential")
+    }.use { manager ->
+        manager.open(listUrl, randomIndexes = true)
+
+        val indexes = List(5) { manager.allocate(listUrl) }
+        println("Allocated status list indexes: $indexes")
+
+        val vc = CredentialBuilder(CredentialBuilderType.W3CV2CredentialBuilder).apply {
+            addContext("https://www.w3.org/ns/credentials/examples/v2")
+            addType("MyCustomCredential")
+            randomCredentialSubjectUUID()
+            this.issuerDid = issuerDid
+            subjectDid = "did:key:xyz"
+            validFromNow()
+            useStatusList2021Revocation(listUrl, indexes.first())
+            useCredentialSubject(mapOf("entityIdentification" to "12345").toJsonObject())
+        }.buildW3C()
+        println("VC with status list entry:\n${vc.toPrettyJson()}")
+
+        coroutineScope {
+            val publishing = manager.startPublishing(this)
+
+            // revocations within one publish interval end up in a single re-signed status list credential
+            indexes.take(3).forEach { index ->
+                println("Revoking index $index: ${manager.revoke(listUrl, index)}")
+            }
+            println("Index ${indexes.first()} revoked: ${manager.isRevoked(listUrl, indexes.first())}")
+            println("Index ${indexes.last()} revoked: ${manager.isRevoked(listUrl, indexes.last())}")
+
+            delay(1.seconds + 500.milliseconds)
+            publishing.cancel()
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package vc.status
+
+import id.walt.crypto.keys.Key
+import id.walt.w3c.vc.vcs.W3CVC
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.isActive
+import kotlinx.coroutines.launch
+import org.slf4j.LoggerFactory
+import java.io.ByteArrayOutputStream
+import java.io.Closeable
+import java.lang.invoke.MethodHandles
+import java.nio.ByteOrder
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.StandardOpenOption
+import java.security.MessageDigest
+import java.time.Instant
+import java.time.temporal.ChronoUnit
+import java.util.Base64
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.zip.GZIPOutputStream
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Receives every re-signed StatusList2021 credential, e.g. to upload it to the URL
+ * referenced by `credentialStatus.statusListCredential`.
+ */
+fun interface StatusListPublisher {
+    suspend fun publish(listUrl: String, signedCredential: String)
+}
+
+/**
+ * Issuer-side manager for StatusList2021 revocation lists.
+ *
+ * Every list lives in its own memory-mapped file inside [directory], so allocating indexes
+ * and revoking credentials are single atomic operations on the mapped bitstring. Changes are
+ * not published one by one: [startPublishing] re-signs and publishes only the lists that
+ * changed since the previous run, once per [publishInterval].
+ */
+class StatusListManager(
+    private val directory: Path,
+    private val issuerKey: Key,
+    private val issuerDid: String,
+    private val publishInterval: Duration = 30.seconds,
+    private val publisher: StatusListPublisher,
+) : Closeable {
+
+    private val lists = ConcurrentHashMap<String, StatusList>()
+
+    init {
+        Files.createDirectories(directory)
+    }
+
+    /**
+     * Opens (or creates) the list published at [listUrl]. With [randomIndexes] enabled, indexes are
+     * handed out in random order, so that neighbouring credentials cannot be correlated by index.
+     */
+    fun open(listUrl: String, capacity: Int = DEFAULT_CAPACITY, randomIndexes: Boolean = false): StatusList =
+        lists.computeIfAbsent(listUrl) {
+            StatusList(listUrl, directory.resolve(fileNameFor(listUrl)), capacity, randomIndexes)
+        }
+
+    fun allocate(listUrl: String): Int = list(listUrl).allocate()
+
+    fun revoke(listUrl: String, index: Int): Boolean = list(listUrl).revoke(index)
+
+    fun isRevoked(listUrl: String, index: Int): Boolean = list(listUrl).isRevoked(index)
+
+    fun startPublishing(scope: CoroutineScope): Job = scope.launch {
+        while (isActive) {
+            delay(publishInterval)
+            publishChanged()
+        }
+    }
+
+    /**
+     * Re-signs and publishes every list with pending changes. Returns the number of published lists.
+     *
+     * A list whose signing or publishing fails keeps its pending changes and is retried on the next run,
+     * the other lists are published regardless.
+     */
+    suspend fun publishChanged(): Int {
+        var published = 0
+        for (list in lists.values) {
+            if (!list.takeChanges()) continue
+            try {
+                publisher.publish(list.url, signStatusListCredential(list))
+                published++
+            } catch (e: CancellationException) {
+                list.restoreChanges()
+                throw e
+            } catch (e: Exception) {
+                list.restoreChanges()
+                log.warn("Publishing status list {} failed, retrying on the next run: {}", list.url, e.toString())
+            }
+        }
+        return published
+    }
+
+    private suspend fun signStatusListCredential(list: StatusList): String {
+        val subjectId = "${list.url}#list"
+        val vc = W3CVC.build(
+            context = listOf(
+                "https://www.w3.org/2018/credentials/v1",
+                "https://w3id.org/vc/status-list/2021/v1"
+            ),
+            type = listOf("VerifiableCredential", "StatusList2021Credential"),
+
+            "id" to list.url,
+            "issuer" to issuerDid,
+            "issuanceDate" to Instant.now().truncatedTo(ChronoUnit.SECONDS).toString(),
+            "credentialSubject" to mapOf(
+                "id" to subjectId,
+                "type" to "StatusList2021",
+                "statusPurpose" to "revocation",
+                "encodedList" to list.encodedList()
+            )
+        )
+        return vc.signJws(
+            issuerKey = issuerKey,
+            issuerId = issuerDid,
+            issuerKid = issuerKey.getKeyId(),
+            subjectDid = subjectId,
+        )
+    }
+
+    private fun list(listUrl: String): StatusList =
+        lists[listUrl] ?: throw IllegalArgumentException("Unknown status list: $listUrl")
+
+    override fun close() {
+        lists.values.forEach { it.close() }
+        lists.clear()
+    }
+
+    companion object {
+        private val log = LoggerFactory.getLogger(StatusListManager::class.java)
+
+        // 2^20 entries (128 KiB bitstring), well above the 16 KiB minimum recommended for herd privacy
+        const val DEFAULT_CAPACITY = 1 shl 20
+
+        private fun fileNameFor(listUrl: String): String =
+            MessageDigest.getInstance("SHA-256").digest(listUrl.encodeToByteArray())
+                .joinToString("") { "%02x".format(it) } + ".statuslist"
+    }
+}
+
+/**
+ * A single status list backed by a memory-mapped file with the following layout:
+ *
+ * ```
+ * [0, 64)          header: magic, flags, capacity, next sequential index, allocated count
+ * [64, 64 + n)     status bitstring (bit i set = credential i revoked), n = capacity / 8
+ * [64 + n, 64 + 2n) allocation bitmap, only used for random index allocation
+ * ```
+ *
+ * All state changes are compare-and-set operations directly on the mapping, so concurrent
+ * issuers never block each other.
+ */
+class StatusList internal constructor(
+    val url: String,
+    file: Path,
+    val capacity: Int,
+    val randomIndexes: Boolean,
+) : Closeable {
+
+    private val channel: FileChannel
+    private val buffer: MappedByteBuffer
+    private val bitstringBytes = capacity / 8
+    private val changed = AtomicBoolean(true)
+
+    init {
+        require(capacity > 0 && capacity % 64 == 0) { "Status list capacity must be a positive multiple of 64, was $capacity" }
+        val exists = Files.exists(file)
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2L * bitstringBytes)
+
+        if (exists && buffer.getInt(MAGIC_OFFSET) == MAGIC) {
+            check(buffer.getLong(CAPACITY_OFFSET) == capacity.toLong()) {
+                "Status list $url was created with capacity ${buffer.getLong(CAPACITY_OFFSET)}, not $capacity"
+            }
+            check((buffer.getInt(FLAGS_OFFSET) and FLAG_RANDOM != 0) == randomIndexes) {
+                "Status list $url was created with a different index allocation mode"
+            }
+        } else {
+            buffer.putInt(FLAGS_OFFSET, if (randomIndexes) FLAG_RANDOM else 0)
+            buffer.putLong(CAPACITY_OFFSET, capacity.toLong())
+            buffer.putLong(NEXT_INDEX_OFFSET, 0)
+            buffer.putLong(ALLOCATED_OFFSET, 0)
+            buffer.putInt(MAGIC_OFFSET, MAGIC)
+        }
+    }
+
+    private val allocationOffset = HEADER_SIZE + bitstringBytes
+
+    fun allocate(): Int {
+        if (!randomIndexes) {
+            val index = LONG.getAndAdd(buffer, NEXT_INDEX_OFFSET, 1L) as Long
+            if (index >= capacity) throw IllegalStateException("Status list $url is exhausted ($capacity entries)")
+            return index.toInt()
+        }
+
+        val allocated = LONG.getAndAdd(buffer, ALLOCATED_OFFSET, 1L) as Long
+        if (allocated >= capacity) throw IllegalStateException("Status list $url is exhausted ($capacity entries)")
+
+        // a free entry is guaranteed to exist now, random probing only degrades once the list is almost full
+        val random = ThreadLocalRandom.current()
+        repeat(MAX_RANDOM_PROBES) {
+            val index = random.nextInt(capacity)
+            if (setBit(allocationOffset, index)) return index
+        }
+        val start = random.nextInt(capacity)
+        for (i in 0 until capacity) {
+            val index = (start + i) % capacity
+            if (setBit(allocationOffset, index)) return index
+        }
+        throw IllegalStateException("Status list $url is exhausted ($capacity entries)")
+    }
+
+    /**
+     * Marks [index] as revoked. Returns false if it was already revoked.
+     */
+    fun revoke(index: Int): Boolean {
+        require(index in 0 until capacity) { "Index $index is outside of status list $url" }
+        return setBit(HEADER_SIZE, index).also { if (it) changed.set(true) }
+    }
+
+    fun isRevoked(index: Int): Boolean {
+        require(index in 0 until capacity) { "Index $index is outside of status list $url" }
+        val word = LONG.getVolatile(buffer, wordOffset(HEADER_SIZE, index)) as Long
+        return word and bitMask(index) != 0L
+    }
+
+    internal fun takeChanges(): Boolean = changed.getAndSet(false)
+
+    internal fun restoreChanges() = changed.set(true)
+
+    /**
+     * GZIP-compressed, base64url-encoded bitstring as expected in `credentialSubject.encodedList`.
+     */
+    fun encodedList(): String {
+        val bitstring = ByteArray(bitstringBytes)
+        buffer.duplicate().position(HEADER_SIZE).get(bitstring)
+        buffer.force()
+
+        val compressed = ByteArrayOutputStream(bitstringBytes / 64)
+        GZIPOutputStream(compressed).use { it.write(bitstring) }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(compressed.toByteArray())
+    }
+
+    private fun setBit(regionOffset: Int, index: Int): Boolean {
+        val offset = wordOffset(regionOffset, index)
+        val mask = bitMask(index)
+        while (true) {
+            val word = LONG.getVolatile(buffer, offset) as Long
+            if (word and mask != 0L) return false
+            if (LONG.compareAndSet(buffer, offset, word, word or mask)) return true
+        }
+    }
+
+    override fun close() {
+        buffer.force()
+        channel.close()
+    }
+
+    private companion object {
+        // big-endian 64-bit words keep the StatusList2021 bit order: index 0 is the most significant bit of byte 0
+        val LONG = MethodHandles.byteBufferViewVarHandle(LongArray::class.java, ByteOrder.BIG_ENDIAN)
+
+        const val MAGIC = 0x534c3231 // "SL21"
+        const val FLAG_RANDOM = 1
+        const val MAGIC_OFFSET = 0
+        const val FLAGS_OFFSET = 4
+        const val CAPACITY_OFFSET = 8
+        const val NEXT_INDEX_OFFSET = 16
+        const val ALLOCATED_OFFSET = 24
+        const val HEADER_SIZE = 64
+        const val MAX_RANDOM_PROBES = 64
+
+        fun wordOffset(regionOffset: Int, index: Int) = regionOffset + (index ushr 6) * 8
+        fun bitMask(index: Int) = Long.MIN_VALUE ushr (index and 63)
+    }
+}
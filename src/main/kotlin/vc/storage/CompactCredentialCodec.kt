@@ -0,0 +1,185 @@
+package vc.storage
+
+import id.walt.mdoc.dataelement.AnyDataElement
+import id.walt.mdoc.dataelement.BooleanElement
+import id.walt.mdoc.dataelement.ByteStringElement
+import id.walt.mdoc.dataelement.DataElement
+import id.walt.mdoc.dataelement.ListElement
+import id.walt.mdoc.dataelement.MapElement
+import id.walt.mdoc.dataelement.MapKey
+import id.walt.mdoc.dataelement.NullElement
+import id.walt.mdoc.dataelement.NumberElement
+import id.walt.mdoc.dataelement.StringElement
+import id.walt.w3c.vc.vcs.W3CVC
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonElement
+import kotlinx.serialization.json.JsonNull
+import kotlinx.serialization.json.JsonObject
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.util.Base64
+
+/**
+ * Lossless CBOR storage envelope for signed JWT credentials and unsigned [W3CVC]s, built on the data elements of
+ * `waltid-mdoc-credentials`.
+ *
+ * The envelope is a CBOR map: `0` the format version, `1` the JWS header, `2` the payload (or the credential),
+ * `3` the signature bytes. JSON objects become CBOR maps whose well-known member names are dictionary-coded as
+ * small integer keys ([KEYS]); well-known string values such as context URLs and credential types become one-byte
+ * byte strings ([VALUES]), which never occur in JSON and are therefore unambiguous.
+ *
+ * Decoding reproduces the original compact JWS exactly. A segment is only dictionary-coded if decoding it again
+ * yields the same bytes, anything else (pretty-printed JSON, numbers that don't survive as 64-bit integers, ...)
+ * is stored as raw JSON bytes instead, which still saves the base64 overhead. A header or payload segment that is
+ * not canonical base64url (padding, nonzero trailing bits) would not survive decoding and re-encoding, it is stored
+ * as the original segment text.
+ *
+ * The dictionaries belong to [VERSION]: entries may only be appended, never reordered or removed.
+ */
+object CompactCredentialCodec {
+
+    const val VERSION = 1
+
+    private const val VERSION_KEY = 0
+    private const val HEADER_KEY = 1
+    private const val PAYLOAD_KEY = 2
+    private const val SIGNATURE_KEY = 3
+
+    /** Member names, most frequent first so that the first 24 encode in a single byte. */
+    val KEYS = listOf(
+        "@context", "type", "id", "credentialSubject", "issuer", "issuanceDate", "expirationDate", "name",
+        "description", "iss", "sub", "nbf", "exp", "iat", "jti", "vc", "kid", "alg", "typ", "credentialStatus",
+        "credentialSchema", "validFrom", "validUntil", "image", "achievement", "criteria", "narrative", "evidence",
+        "proof", "vp", "holder", "verifiableCredential", "nonce", "aud", "statusPurpose", "statusListIndex",
+        "statusListCredential", "encodedList", "degree", "cnf", "jwk", "kty", "crv", "x", "y", "e", "n",
+    )
+
+    /** Common string values: context URLs, credential and subject types, JWS header values. */
+    val VALUES = listOf(
+        "https://www.w3.org/2018/credentials/v1",
+        "https://www.w3.org/ns/credentials/v2",
+        "https://purl.imsglobal.org/spec/ob/v3p0/context.json",
+        "https://purl.imsglobal.org/spec/ob/v3p0/context-3.0.2.json",
+        "https://purl.imsglobal.org/spec/ob/v3p0/context-3.0.3.json",
+        "https://w3id.org/vc/status-list/2021/v1",
+        "https://www.w3.org/2018/credentials/examples/v1",
+        "VerifiableCredential", "VerifiablePresentation", "OpenBadgeCredential", "AchievementSubject", "Achievement",
+        "Criteria", "Profile", "Image", "Evidence", "UniversityDegreeCredential", "BachelorDegree",
+        "StatusList2021Entry", "StatusList2021Credential", "StatusList2021", "revocation", "suspension",
+        "JWT", "EdDSA", "ES256", "ES256K", "RS256", "PS256", "OKP", "EC", "RSA", "Ed25519", "P-256", "secp256k1",
+    )
+
+    private val keyCodes = KEYS.withIndex().associate { (index, key) -> key to index }
+    private val valueCodes = VALUES.withIndex().associate { (index, value) -> value to index }
+
+    init {
+        require(keyCodes.size == KEYS.size && valueCodes.size == VALUES.size) { "Duplicate dictionary entry" }
+        require(VALUES.size <= Byte.MAX_VALUE) { "Value codes are single bytes" }
+    }
+
+    fun encodeJws(jws: String): ByteArray {
+        val segments = jws.split('.')
+        require(segments.size == 3) { "Not a compact JWS" }
+        val signature = Base64.getUrlDecoder().decode(segments[2])
+        require(base64Url(signature) == segments[2]) { "Signature segment is not canonical base64url" }
+        return MapElement(
+            mapOf(
+                MapKey(VERSION_KEY) to NumberElement(VERSION),
+                MapKey(HEADER_KEY) to jwsSegment(segments[0]),
+                MapKey(PAYLOAD_KEY) to jwsSegment(segments[1]),
+                MapKey(SIGNATURE_KEY) to ByteStringElement(signature),
+            )
+        ).toCBOR()
+    }
+
+    fun decodeJws(envelope: ByteArray): String {
+        val members = members(envelope)
+        val signature = members[SIGNATURE_KEY] as? ByteStringElement ?: throw IllegalArgumentException("Envelope holds no JWS")
+        return jwsSegmentText(members.getValue(HEADER_KEY)) + "." + jwsSegmentText(members.getValue(PAYLOAD_KEY)) + "." +
+                base64Url(signature.value)
+    }
+
+    // the signature covers the exact segment text, so only canonical base64url may be decoded and re-encoded
+    private fun jwsSegment(text: String): AnyDataElement {
+        val decoded = Base64.getUrlDecoder().decode(text)
+        return if (base64Url(decoded) == text) segment(decoded) else StringElement(text)
+    }
+
+    private fun jwsSegmentText(segment: AnyDataElement): String =
+        if (segment is StringElement) segment.value else base64Url(segmentBytes(segment))
+
+    fun encode(vc: W3CVC): ByteArray = MapElement(
+        mapOf(
+            MapKey(VERSION_KEY) to NumberElement(VERSION),
+            MapKey(PAYLOAD_KEY) to segment(vc.toJsonObject().toString().encodeToByteArray()),
+        )
+    ).toCBOR()
+
+    fun decodeCredential(envelope: ByteArray): W3CVC {
+        val members = members(envelope)
+        require(SIGNATURE_KEY !in members) { "Envelope holds a JWS, use decodeJws" }
+        return W3CVC(Json.parseToJsonElement(segmentBytes(members.getValue(PAYLOAD_KEY)).decodeToString()).jsonObject)
+    }
+
+    /**
+     * True if header and payload of the envelope are dictionary-coded, false if either fell back to raw JSON.
+     */
+    fun isDictionaryCoded(envelope: ByteArray): Boolean =
+        members(envelope).filterKeys { it == HEADER_KEY || it == PAYLOAD_KEY }.values.all { it is MapElement }
+
+    private fun members(envelope: ByteArray): Map<Int, AnyDataElement> {
+        val map = DataElement.fromCBOR<MapElement>(envelope).value.entries.associate { (key, value) ->
+            (key.int ?: throw IllegalArgumentException("Unexpected envelope member ${key.str}")) to value
+        }
+        val version = (map[VERSION_KEY] as? NumberElement)?.value?.toInt()
+        require(version == VERSION) { "Unsupported envelope version $version" }
+        require(PAYLOAD_KEY in map) { "Envelope has no payload" }
+        return map
+    }
+
+    private fun segment(json: ByteArray): AnyDataElement {
+        val coded = runCatching { element(Json.parseToJsonElement(json.decodeToString())) }.getOrNull()
+        // verify through CBOR, so that member order and number handling of the encoder are covered as well
+        val exact = coded is MapElement &&
+                segmentBytes(DataElement.fromCBOR<MapElement>(coded.toCBOR())).contentEquals(json)
+        return if (exact) coded!! else ByteStringElement(json)
+    }
+
+    private fun segmentBytes(segment: AnyDataElement): ByteArray = when (segment) {
+        is ByteStringElement -> segment.value
+        else -> jsonElement(segment).toString().encodeToByteArray()
+    }
+
+    private fun element(json: JsonElement): AnyDataElement = when (json) {
+        is JsonObject -> MapElement(json.entries.associate { (name, value) ->
+            (keyCodes[name]?.let { MapKey(it) } ?: MapKey(name)) to element(value)
+        })
+        is JsonArray -> ListElement(json.map { element(it) })
+        is JsonNull -> NullElement()
+        is JsonPrimitive -> when {
+            json.isString -> valueCodes[json.content]?.let { ByteStringElement(byteArrayOf(it.toByte())) } ?: StringElement(json.content)
+            json.content == "true" || json.content == "false" -> BooleanElement(json.content.toBoolean())
+            else -> {
+                val number = json.content.toLongOrNull()
+                require(number != null && number.toString() == json.content) { "Number ${json.content} is not a canonical integer" }
+                NumberElement(number)
+            }
+        }
+    }
+
+    private fun jsonElement(element: AnyDataElement): JsonElement = when (element) {
+        is MapElement -> JsonObject(element.value.entries.associate { (key, value) ->
+            (key.int?.let { KEYS[it] } ?: requireNotNull(key.str)) to jsonElement(value)
+        })
+        is ListElement -> JsonArray(element.value.map { jsonElement(it) })
+        is StringElement -> JsonPrimitive(element.value)
+        is ByteStringElement -> JsonPrimitive(VALUES[element.value.single().toInt()])
+        is NumberElement -> JsonPrimitive(element.value.toLong())
+        is BooleanElement -> JsonPrimitive(element.value)
+        is NullElement -> JsonNull
+        else -> throw IllegalArgumentException("Unexpected ${element.type} in credential envelope")
+    }
+
+    private fun base64Url(bytes: ByteArray): String = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes)
+}
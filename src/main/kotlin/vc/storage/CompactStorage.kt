@@ -0,0 +1,45 @@
+package vc.storage
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import vc.batch.batchCredential
+import vc.jwt.largeOpenBadgeJwt
+import java.util.Base64
+import kotlin.time.measureTime
+
+suspend fun main() {
+    storeCredentialsCompactly()
+}
+
+suspend fun storeCredentialsCompactly() {
+    val issuerKey = JWKKey.generate(KeyType.Ed25519)
+    val issuerDid = "did:web:issuer.walt-test.cloud"
+    val degree = batchCredential(issuerDid, 42)
+    val samples = mapOf(
+        "UniversityDegree JWT" to degree.signJws(
+            issuerKey = issuerKey, issuerId = issuerDid, issuerKid = issuerKey.getKeyId(), subjectDid = "did:example:holder-42",
+        ),
+        "OpenBadge JWT" to largeOpenBadgeJwt(evidenceCount = 0),
+        "OpenBadge JWT, 200 evidence entries" to largeOpenBadgeJwt(evidenceCount = 200),
+    )
+
+    val vcEnvelope = CompactCredentialCodec.encode(degree)
+    check(CompactCredentialCodec.decodeCredential(vcEnvelope).toJsonObject() == degree.toJsonObject())
+    println("UniversityDegree W3CVC: ${degree.toJsonObject().toString().encodeToByteArray().size} bytes JSON, ${vcEnvelope.size} bytes CBOR")
+
+    for ((name, jws) in samples) {
+        val envelope = CompactCredentialCodec.encodeJws(jws)
+        check(CompactCredentialCodec.decodeJws(envelope) == jws) { "$name does not round-trip" }
+        val json = jws.split('.').let { (header, payload) ->
+            Base64.getUrlDecoder().decode(header).size + Base64.getUrlDecoder().decode(payload).size
+        }
+        println(
+            "$name: ${jws.length} bytes JWS, $json bytes JSON, ${envelope.size} bytes CBOR " +
+                    "(${100 * envelope.size / jws.length}% of the JWS, dictionary-coded: ${CompactCredentialCodec.isDictionaryCoded(envelope)})"
+        )
+
+        val encodeTime = measureTime { repeat(1_000) { CompactCredentialCodec.encodeJws(jws) } }
+        val decodeTime = measureTime { repeat(1_000) { CompactCredentialCodec.decodeJws(envelope) } }
+        println("  1000 x encode $encodeTime, 1000 x decode $decodeTime")
+    }
+}
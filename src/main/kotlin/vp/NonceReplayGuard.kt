@@ -0,0 +1,231 @@
+package vp
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+import java.util.concurrent.atomic.AtomicReference
+import java.util.concurrent.atomic.AtomicReferenceArray
+import kotlin.time.Duration
+import kotlin.time.Duration.Companion.hours
+import kotlin.time.Duration.Companion.minutes
+import kotlin.time.Duration.Companion.seconds
+
+/**
+ * Storage SPI for presentation nonces. Implementations for multi-node deployments (e.g. `SET NX PX` on a
+ * shared Redis) must record the nonce atomically; [InMemoryNonceStore] is the in-process stand-in.
+ */
+fun interface NonceStore {
+    /**
+     * Records [nonce] until [expiresAtMillis]. Returns false if the nonce is already recorded, i.e. it is replayed.
+     */
+    fun recordIfAbsent(nonce: String, expiresAtMillis: Long): Boolean
+
+    /**
+     * Records [nonce], which the caller already knows to be new, with a blind write instead of a lookup (e.g.
+     * `SET PX GET`). Returns false only if the write replaced a live entry, i.e. the same nonce was recorded
+     * concurrently.
+     */
+    fun record(nonce: String, expiresAtMillis: Long): Boolean = recordIfAbsent(nonce, expiresAtMillis)
+}
+
+/**
+ * Exact, lock-free nonce store. Nonces are kept in a concurrent map and additionally filed into time buckets by
+ * expiry, so that expired nonces are dropped bucket by bucket instead of scanning the whole map.
+ */
+class InMemoryNonceStore(
+    private val maxTtl: Duration = 1.hours,
+    bucketWidth: Duration = 10.seconds,
+    private val clock: () -> Long = System::currentTimeMillis,
+) : NonceStore {
+
+    private val bucketWidthMillis = bucketWidth.inWholeMilliseconds
+
+    // the ring covers the longest TTL, buckets of live nonces are never reused for other slots
+    private val bucketCount = (maxTtl.inWholeMilliseconds / bucketWidthMillis + 2).toInt()
+
+    private class Bucket(val slot: Long) {
+        val nonces = ConcurrentLinkedQueue<String>()
+    }
+
+    private val expiries = ConcurrentHashMap<String, Long>()
+    private val buckets = AtomicReferenceArray<Bucket?>(bucketCount)
+    private val sweptUpToSlot = AtomicLong(clock() / bucketWidthMillis)
+
+    val size: Int get() = expiries.size
+
+    override fun recordIfAbsent(nonce: String, expiresAtMillis: Long): Boolean {
+        val now = clock()
+        require(expiresAtMillis - now <= maxTtl.inWholeMilliseconds) { "Nonce TTL exceeds the maximum of $maxTtl" }
+        sweep(now)
+        while (true) {
+            val previous = expiries.putIfAbsent(nonce, expiresAtMillis)
+            when {
+                previous == null -> break
+                previous > now -> return false
+                // expired but not swept yet: take it over, unless another thread was faster
+                expiries.replace(nonce, previous, expiresAtMillis) -> break
+            }
+        }
+        bucketFor(expiresAtMillis / bucketWidthMillis).nonces.add(nonce)
+        return true
+    }
+
+    override fun record(nonce: String, expiresAtMillis: Long): Boolean {
+        val now = clock()
+        require(expiresAtMillis - now <= maxTtl.inWholeMilliseconds) { "Nonce TTL exceeds the maximum of $maxTtl" }
+        sweep(now)
+        val previous = expiries.put(nonce, expiresAtMillis)
+        bucketFor(expiresAtMillis / bucketWidthMillis).nonces.add(nonce)
+        return previous == null || previous <= now
+    }
+
+    private fun bucketFor(slot: Long): Bucket {
+        val index = Math.floorMod(slot, bucketCount.toLong()).toInt()
+        while (true) {
+            val bucket = buckets.get(index)
+            if (bucket != null && bucket.slot == slot) return bucket
+            val fresh = Bucket(slot)
+            // stale buckets are normally swept already, only after long idle periods one may be left over
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                bucket?.let { drain(it, clock()) }
+                return fresh
+            }
+        }
+    }
+
+    private fun sweep(now: Long) {
+        val currentSlot = now / bucketWidthMillis
+        val swept = sweptUpToSlot.get()
+        if (swept >= currentSlot || !sweptUpToSlot.compareAndSet(swept, currentSlot)) return
+
+        for (slot in maxOf(swept, currentSlot - bucketCount) until currentSlot) {
+            val index = Math.floorMod(slot, bucketCount.toLong()).toInt()
+            val bucket = buckets.get(index) ?: continue
+            if (bucket.slot == slot && buckets.compareAndSet(index, bucket, null)) drain(bucket, now)
+        }
+    }
+
+    private fun drain(bucket: Bucket, now: Long) {
+        for (nonce in bucket.nonces) {
+            expiries.computeIfPresent(nonce) { _, expiresAt -> if (expiresAt <= now) null else expiresAt }
+        }
+    }
+}
+
+/**
+ * Fixed-size Bloom filter in front of an exact [NonceStore], sized for millions of nonces per TTL.
+ *
+ * All bits of a nonce live in the same 64-bit word, so that test-and-set is a single compare-and-set. Two filter
+ * generations are kept and rotated every [ttl], a nonce is therefore remembered for at least one TTL. [add] only
+ * answers "definitely new" or "maybe seen": the first lets the guard skip the exact lookup, the second (which
+ * includes the false positives) is always decided by the exact store. A false positive costs a lookup, never a
+ * rejection. The filter itself takes `expectedNoncesPerTtl * bitsPerNonce / 4` bytes however many nonces arrive;
+ * see [NonceReplayGuard] for when that bounds the memory of the whole guard.
+ */
+class BloomNonceFilter(
+    val ttl: Duration,
+    expectedNoncesPerTtl: Int = 1_000_000,
+    bitsPerNonce: Int = 16,
+    private val hashFunctions: Int = 6,
+    private val clock: () -> Long = System::currentTimeMillis,
+) {
+
+    private class Generations(val current: AtomicLongArray, val previous: AtomicLongArray, val startedAt: Long)
+
+    private val ttlMillis = ttl.inWholeMilliseconds
+    private val words = maxOf(1, (expectedNoncesPerTtl.toLong() * bitsPerNonce / 64).toInt())
+    private val generations = AtomicReference(Generations(AtomicLongArray(words), AtomicLongArray(words), clock()))
+
+    /**
+     * Adds [nonce] to the filter. Returns true if it was definitely not added before (within the last TTL),
+     * false if it may have been.
+     */
+    fun add(nonce: String): Boolean {
+        val gens = rotate(clock())
+        val hash = hash64(nonce)
+        val word = Math.floorMod(hash, words.toLong()).toInt()
+        val mask = mask(hash)
+
+        val inPrevious = gens.previous.get(word) and mask == mask
+        while (true) {
+            val bits = gens.current.get(word)
+            if (bits and mask == mask) return false
+            if (gens.current.compareAndSet(word, bits, bits or mask)) return !inPrevious
+        }
+    }
+
+    private fun rotate(now: Long): Generations {
+        while (true) {
+            val gens = generations.get()
+            if (now - gens.startedAt < ttlMillis) return gens
+            val rotated = Generations(AtomicLongArray(words), gens.current, now)
+            if (generations.compareAndSet(gens, rotated)) return rotated
+        }
+    }
+
+    private fun mask(hash: Long): Long {
+        var mask = 0L
+        var h = (hash ushr 32) or (hash shl 32)
+        repeat(hashFunctions) {
+            mask = mask or (1L shl (h and 63).toInt())
+            h = (h ushr 6) or (h shl 58)
+        }
+        return mask
+    }
+
+    // 64-bit FNV-1a with a murmur3 finalizer
+    private fun hash64(value: String): Long {
+        var h = -0x340d631b7bdddcdbL
+        for (c in value) {
+            h = (h xor c.code.toLong()) * 0x100000001b3L
+        }
+        h = (h xor (h ushr 33)) * -0xae502812aa7333L
+        h = (h xor (h ushr 33)) * -0x3b314601e57a13adL
+        return h xor (h ushr 33)
+    }
+}
+
+/**
+ * Replay guard for VP holder binding: a presentation nonce is accepted only once within [ttl].
+ *
+ * Without a [filter], the exact [local] store rejects replays seen by this node without any I/O, and the optional
+ * [shared] store is consulted for every nonce that is new to this node; it makes the check authoritative across
+ * all nodes of a deployment.
+ *
+ * With a [filter] and a [shared] store, this node keeps no exact nonces at all and its memory stays bounded by the
+ * filter: nonces the filter reports as definitely new are written to [shared] blindly ([NonceStore.record]), only
+ * "maybe seen" nonces (replays and false positives) are looked up there. With a [filter] but no [shared] store, the
+ * filter only saves the lookup in [local], which still holds every nonce of the TTL.
+ */
+class NonceReplayGuard(
+    private val ttl: Duration = 10.minutes,
+    private val local: NonceStore = InMemoryNonceStore(),
+    private val shared: NonceStore? = null,
+    private val filter: BloomNonceFilter? = null,
+    private val clock: () -> Long = System::currentTimeMillis,
+) {
+
+    init {
+        require(filter == null || filter.ttl >= ttl) { "The Bloom filter must remember nonces for at least $ttl" }
+    }
+
+    /**
+     * Returns true if [nonce] is fresh and records it, false if it is replayed.
+     */
+    fun checkAndRecord(nonce: String): Boolean {
+        val expiresAt = clock() + ttl.inWholeMilliseconds
+        // a concurrent duplicate of a definitely new nonce is "maybe seen" for the filter, the store decides the race
+        val definitelyNew = filter?.add(nonce) == true
+        if (filter != null && shared != null) {
+            // the filter only knows this node, record() still reports a nonce that another node recorded
+            return if (definitelyNew) shared.record(nonce, expiresAt) else shared.recordIfAbsent(nonce, expiresAt)
+        }
+        val newToThisNode = if (definitelyNew) {
+            local.record(nonce, expiresAt)
+        } else {
+            local.recordIfAbsent(nonce, expiresAt)
+        }
+        return newToThisNode && (shared?.recordIfAbsent(nonce, expiresAt) ?: true)
+    }
+}
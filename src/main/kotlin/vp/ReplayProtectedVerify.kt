@@ -0,0 +1,130 @@
+package vp
+
+import id.walt.crypto.keys.KeyType
+import id.walt.crypto.keys.jwk.JWKKey
+import id.walt.crypto.utils.JsonUtils.toJsonElement
+import id.walt.did.dids.DidService
+import id.walt.policies.Verifier
+import id.walt.policies.models.PolicyRequest
+import id.walt.policies.models.PresentationVerificationResponse
+import id.walt.policies.policies.JwtSignaturePolicy
+import id.walt.policies.policies.vp.HolderBindingPolicy
+import id.walt.w3c.PresentationBuilder
+import id.walt.w3c.utils.VCFormat
+import id.walt.w3c.vc.vcs.W3CVC
+import kotlinx.serialization.json.Json
+import kotlinx.serialization.json.JsonArray
+import kotlinx.serialization.json.JsonPrimitive
+import kotlinx.serialization.json.jsonObject
+import java.util.Base64
+import kotlin.time.Duration.Companion.minutes
+
+suspend fun main() {
+    verifyVPWithReplayGuard()
+}
+
+class ReplayCheckedVerification(
+    val response: PresentationVerificationResponse,
+    /** Why the presentation was rejected by the replay guard, null if the nonce was fresh. */
+    val replayRejection: String?,
+) {
+    fun overallSuccess() = replayRejection == null && response.overallSuccess()
+}
+
+/**
+ * Verifies [signedVP] and then consumes its nonce with [guard]. The nonce is only recorded for presentations that
+ * passed verification, so unsigned or forged presentations cannot be used to burn nonces of legitimate holders.
+ * Only JWT presentations are supported, their nonce and audience are read from the JWT payload.
+ */
+suspend fun verifyPresentationOnce(
+    guard: NonceReplayGuard,
+    expectedAudience: String,
+    vcFormat: VCFormat,
+    signedVP: String,
+    vpPolicies: List<PolicyRequest>,
+    globalVcPolicies: List<PolicyRequest>,
+    specificCredentialPolicies: Map<String, List<PolicyRequest>> = emptyMap(),
+    presentationContext: Map<String, Any> = emptyMap(),
+): ReplayCheckedVerification {
+    require(vcFormat in JWT_FORMATS) { "Replay protection is only implemented for JWT presentations, not $vcFormat" }
+    val response = Verifier.verifyPresentation(
+        vcFormat,
+        signedVP,
+        vpPolicies,
+        globalVcPolicies,
+        specificCredentialPolicies,
+        presentationContext
+    )
+    if (!response.overallSuccess()) return ReplayCheckedVerification(response, null)
+
+    val payload = Json.parseToJsonElement(
+        Base64.getUrlDecoder().decode(signedVP.split('.')[1]).decodeToString()
+    ).jsonObject
+    val nonce = (payload["nonce"] as? JsonPrimitive)?.content
+    val audiences = when (val aud = payload["aud"]) {
+        is JsonPrimitive -> listOf(aud.content)
+        is JsonArray -> aud.filterIsInstance<JsonPrimitive>().map { it.content }
+        else -> emptyList()
+    }
+
+    val rejection = when {
+        nonce == null -> "presentation has no nonce"
+        expectedAudience !in audiences -> "presentation is not addressed to $expectedAudience"
+        !guard.checkAndRecord(nonce) -> "nonce $nonce was already used"
+        else -> null
+    }
+    return ReplayCheckedVerification(response, rejection)
+}
+
+private val JWT_FORMATS = setOf(VCFormat.jwt_vc_json, VCFormat.jwt_vc)
+
+suspend fun verifyVPWithReplayGuard() {
+    DidService.minimalInit()
+
+    val issuerPrivateKey = JWKKey.generate(KeyType.Ed25519)
+    val issuerDid = DidService.registerByKey("key", issuerPrivateKey).did
+    val holderPrivateKey = JWKKey.generate(KeyType.Ed25519)
+    val holderDid = DidService.registerByKey("key", holderPrivateKey).did
+    val verifierDid = DidService.registerByKey("key", JWKKey.generate(KeyType.Ed25519)).did
+
+    val signedJwtVc = W3CVC.build(
+        context = listOf("https://www.w3.org/2018/credentials/v1"),
+        type = listOf("VerifiableCredential"),
+
+        "issuer" to issuerDid,
+        "issuanceDate" to "2023-08-02T08:03:13Z",
+        "credentialSubject" to mapOf("id" to holderDid)
+    ).signJws(
+        issuerKey = issuerPrivateKey,
+        issuerId = issuerDid,
+        issuerKid = issuerPrivateKey.getKeyId(),
+        subjectDid = holderDid,
+    )
+    val signedVP = PresentationBuilder().apply {
+        did = holderDid
+        nonce = "20394029340"
+        audience = verifierDid
+        addCredential(signedJwtVc.toJsonElement())
+    }.buildAndSign(holderPrivateKey)
+    println("Signed VP: $signedVP")
+
+    // in a multi-node deployment, pass a NonceStore backed by the shared database as `shared`
+    val guard = NonceReplayGuard(ttl = 10.minutes, local = InMemoryNonceStore())
+
+    repeat(2) { attempt ->
+        val verification = verifyPresentationOnce(
+            guard = guard,
+            expectedAudience = verifierDid,
+            vcFormat = VCFormat.jwt_vc_json,
+            signedVP = signedVP,
+            vpPolicies = listOf(PolicyRequest(HolderBindingPolicy())),
+            globalVcPolicies = listOf(PolicyRequest(JwtSignaturePolicy())),
+        )
+        println("Attempt $attempt: Overall Verification Result: ${verification.overallSuccess()}, replay rejection: ${verification.replayRejection}")
+    }
+
+    // Bloom filter front for millions of nonces per TTL: this node keeps only the filter, fresh nonces are written to the
+    // shared store without a lookup, false positives only cost one (the in-memory store stands in for the shared one)
+    val bloomGuard = NonceReplayGuard(ttl = 10.minutes, shared = InMemoryNonceStore(), filter = BloomNonceFilter(ttl = 10.minutes))
+    println("Bloom guard, first use: ${bloomGuard.checkAndRecord("20394029340")}, replay: ${bloomGuard.checkAndRecord("20394029340")}")
+}
@@ -9,6 +9,7 @@ import id.walt.policies.policies.ExpirationDatePolicy
 import id.walt.policies.policies.JwtSignaturePolicy
 import id.walt.policies.policies.vp.HolderBindingPolicy
 import id.walt.w3c.utils.VCFormat
+import vc.policies.PolicyExecutionPlanner
 
 suspend fun main() {
     verifyVP()
@@ -47,13 +48,16 @@ suspend fun verifyVP() {
     // Context is optional and it's an empty map by default.
     val presentationContext = mapOf<String, Any>()
 
+    // Run cheap claim checks first, then signatures, then policies that may need network access.
+    val planner = PolicyExecutionPlanner()
+
     // Verify the presentation
     val resultJWT = Verifier.verifyPresentation(
         vcFormat,
         signedVP,
-        vpPolicies,
-        globalVcPolicies,
-        specificCredentialPolicies,
+        planner.plan(vpPolicies),
+        planner.plan(globalVcPolicies),
+        specificCredentialPolicies.mapValues { (_, policies) -> planner.plan(policies) },
         presentationContext
     )
     println("Overall Verification Result: ${resultJWT.overallSuccess()}")